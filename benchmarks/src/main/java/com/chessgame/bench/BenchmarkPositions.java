@@ -0,0 +1,40 @@
+package com.chessgame.bench;
+
+/**
+ * Library of middlegame and endgame positions used by the benchmarks.
+ * Names are used as JMH parameter values.
+ */
+public final class BenchmarkPositions {
+    public static final String START = "start";
+    public static final String KIWIPETE = "kiwipete";
+    public static final String RUY_LOPEZ = "ruyLopez";
+    public static final String SICILIAN = "sicilian";
+    public static final String QUEENS_GAMBIT = "queensGambit";
+    public static final String ROOK_ENDGAME = "rookEndgame";
+    public static final String LUCENA = "lucena";
+    public static final String QUEEN_VS_PAWN = "queenVsPawn";
+    public static final String PAWN_ENDGAME = "pawnEndgame";
+
+    private BenchmarkPositions() {
+    }
+
+    /**
+     * Get the FEN for a named position
+     * @param name One of the position name constants
+     * @return The position in Forsyth-Edwards Notation
+     */
+    public static String fen(String name) {
+        switch (name) {
+            case START: return "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+            case KIWIPETE: return "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+            case RUY_LOPEZ: return "r1bq1rk1/2p1bppp/p1np1n2/1p2p3/4P3/1BP2N1P/PP1P1PP1/RNBQR1K1 b - - 0 9";
+            case SICILIAN: return "r1b1kb1r/1pqp1ppp/p1n1pn2/8/3NP3/2N1B3/PPP1BPPP/R2QK2R w KQkq - 2 8";
+            case QUEENS_GAMBIT: return "r2q1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N2N2/PP2BPPP/R2Q1RK1 w - - 0 10";
+            case ROOK_ENDGAME: return "8/5k2/8/4KP2/8/8/r7/5R2 w - - 0 1";
+            case LUCENA: return "1K1k4/1P6/8/8/8/8/r7/2R5 w - - 0 1";
+            case QUEEN_VS_PAWN: return "8/8/8/8/8/5k2/2Q3p1/6K1 w - - 0 1";
+            case PAWN_ENDGAME: return "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+            default: throw new IllegalArgumentException("Unknown benchmark position: " + name);
+        }
+    }
+}
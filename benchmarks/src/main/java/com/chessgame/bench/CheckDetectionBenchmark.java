@@ -0,0 +1,83 @@
+package com.chessgame.bench;
+
+import com.chessgame.board.Position;
+import com.chessgame.game.ChessGame;
+import com.chessgame.pieces.Piece;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ChessGame.isKingInCheck and ChessGame.isValidMove
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CheckDetectionBenchmark {
+    @Param({"start", "kiwipete", "ruyLopez", "sicilian", "queensGambit",
+            "rookEndgame", "lucena", "queenVsPawn", "pawnEndgame"})
+    public String position;
+
+    private ChessGame game;
+    private Piece.Color sideToMove;
+    private Position legalFrom;
+    private Position legalTo;
+    private Position illegalTo;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        game = new ChessGame(BenchmarkPositions.fen(position));
+        sideToMove = game.getCurrentPlayer();
+
+        // Use the last legal move found and an empty square the same piece cannot reach
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = game.getBoard().getPiece(row, col);
+                if (piece != null && piece.getColor() == sideToMove) {
+                    List<Position> moves = game.getValidMoves(Position.of(row, col));
+                    if (!moves.isEmpty()) {
+                        legalFrom = Position.of(row, col);
+                        legalTo = moves.get(moves.size() - 1);
+                    }
+                }
+            }
+        }
+        for (int row = 0; row < 8 && illegalTo == null; row++) {
+            for (int col = 0; col < 8 && illegalTo == null; col++) {
+                Position candidate = Position.of(row, col);
+                if (game.getBoard().getPiece(candidate) == null && !game.isValidMove(legalFrom, candidate)) {
+                    illegalTo = candidate;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean isKingInCheck() {
+        return game.isKingInCheck(sideToMove);
+    }
+
+    @Benchmark
+    public boolean isValidMoveLegal() {
+        return game.isValidMove(legalFrom, legalTo);
+    }
+
+    @Benchmark
+    public boolean isValidMoveIllegal() {
+        return game.isValidMove(legalFrom, illegalTo);
+    }
+}
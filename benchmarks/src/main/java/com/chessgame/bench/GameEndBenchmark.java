@@ -0,0 +1,74 @@
+package com.chessgame.bench;
+
+import com.chessgame.board.Position;
+import com.chessgame.game.ChessGame;
+import com.chessgame.pieces.Piece;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ChessGame.makeMove, which validates the move and then runs the
+ * checkmate/stalemate detection for the opponent. The move is taken back
+ * with undoMove after every call, which also pops the move history, so each
+ * invocation sees the same position and the history does not grow.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameEndBenchmark {
+    @Param({"start", "kiwipete", "ruyLopez", "sicilian", "queensGambit",
+            "rookEndgame", "lucena", "queenVsPawn", "pawnEndgame"})
+    public String position;
+
+    private ChessGame game;
+    private Position from;
+    private Position to;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String fen = BenchmarkPositions.fen(position);
+        game = new ChessGame(fen);
+
+        // Pick the first legal move that does not end the game
+        for (int row = 0; row < 8 && from == null; row++) {
+            for (int col = 0; col < 8 && from == null; col++) {
+                Piece piece = game.getBoard().getPiece(row, col);
+                if (piece == null || piece.getColor() != game.getCurrentPlayer()) {
+                    continue;
+                }
+                Position candidateFrom = Position.of(row, col);
+                for (Position candidateTo : game.getValidMoves(candidateFrom)) {
+                    game.makeMove(candidateFrom, candidateTo);
+                    boolean ended = game.isGameOver();
+                    game = new ChessGame(fen);
+                    if (!ended) {
+                        from = candidateFrom;
+                        to = candidateTo;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean makeMoveAndCheckGameEnd() {
+        boolean moved = game.makeMove(from, to);
+        game.undoMove();
+        return moved;
+    }
+}
@@ -0,0 +1,64 @@
+package com.chessgame.bench;
+
+import com.chessgame.game.ChessGame;
+import com.chessgame.pieces.Piece;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Piece.getValidMoves for every piece of one type in a position
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveGenerationBenchmark {
+    @Param({"start", "kiwipete", "ruyLopez", "sicilian", "queensGambit",
+            "rookEndgame", "lucena", "queenVsPawn", "pawnEndgame"})
+    public String position;
+
+    @Param({"Pawn", "Knight", "Bishop", "Rook", "Queen", "King"})
+    public String pieceType;
+
+    private Piece[][] boardArray;
+    private Piece[] pieces;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ChessGame game = new ChessGame(BenchmarkPositions.fen(position));
+        boardArray = game.getBoard().getBoardArray();
+
+        List<Piece> matching = new ArrayList<>();
+        for (Piece[] row : boardArray) {
+            for (Piece piece : row) {
+                if (piece != null && piece.getPieceType().equals(pieceType)) {
+                    matching.add(piece);
+                }
+            }
+        }
+        pieces = matching.toArray(new Piece[0]);
+    }
+
+    @Benchmark
+    public void getValidMoves(Blackhole blackhole) {
+        for (Piece piece : pieces) {
+            blackhole.consume(piece.getValidMoves(boardArray));
+        }
+    }
+}
@@ -6,7 +6,7 @@ if not exist "build" mkdir build
 
 :: Compile all Java files
 echo Compiling Java files...
-javac -d build -cp src\main\java src\main\java\com\chessgame\pieces\*.java src\main\java\com\chessgame\board\*.java src\main\java\com\chessgame\game\*.java src\main\java\com\chessgame\gui\*.java
+javac -d build -cp src\main\java src\main\java\com\chessgame\pieces\*.java src\main\java\com\chessgame\board\*.java src\main\java\com\chessgame\game\*.java src\main\java\com\chessgame\gui\*.java src\main\java\com\chessgame\perft\*.java src\main\java\com\chessgame\engine\*.java src\main\java\com\chessgame\pgn\*.java src\main\java\com\chessgame\archive\*.java src\main\java\com\chessgame\book\*.java src\main\java\com\chessgame\tablebase\*.java src\main\java\com\chessgame\server\*.java src\main\java\com\chessgame\metrics\*.java src\main\java\com\chessgame\cli\*.java
 
 if %errorlevel% equ 0 (
     echo Compilation successful!
@@ -0,0 +1,274 @@
+package com.chessgame.archive;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Fen;
+import com.chessgame.board.Move;
+import com.chessgame.board.MoveGenerator;
+import com.chessgame.board.MoveList;
+import com.chessgame.board.San;
+import com.chessgame.game.ChessGame;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Random access to a game archive written by {@link GameArchiveWriter}. The file
+ * is memory-mapped and game N is found through the index in constant time, then
+ * decoded by replaying its move indexes against the legal move lists.
+ * Only absolute reads are made on the mapping, so one archive can be read from
+ * several threads at once. Archives are limited to 2 GB.
+ *
+ * Usage:
+ *   java com.chessgame.archive.GameArchive games.cga [game number]
+ */
+public class GameArchive implements Closeable {
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private final long gameCount;
+    private final int indexOffset;
+
+    /**
+     * Open an archive
+     * @param file Path of the archive
+     * @throws IOException if the file cannot be read or is not a complete archive
+     */
+    public GameArchive(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Archive larger than 2 GB: " + file);
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            data.order(ByteOrder.LITTLE_ENDIAN);
+            if (size < GameArchiveWriter.HEADER_SIZE || data.getInt(0) != GameArchiveWriter.MAGIC) {
+                throw new IOException("Not a game archive: " + file);
+            }
+            if (data.getInt(4) != GameArchiveWriter.VERSION) {
+                throw new IOException("Unsupported archive version " + data.getInt(4) + ": " + file);
+            }
+            gameCount = data.getLong(8);
+            long index = data.getLong(16);
+            if (gameCount < 0 || index < GameArchiveWriter.HEADER_SIZE || index + gameCount * 8 > size) {
+                throw new IOException("Corrupt archive index: " + file);
+            }
+            indexOffset = (int) index;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the number of games in the archive
+     * @return Game count
+     */
+    public long size() {
+        return gameCount;
+    }
+
+    /**
+     * Get the declared result of a game
+     * @param game Index of the game
+     * @return "1-0", "0-1", "1/2-1/2" or "*"
+     */
+    public String getResult(long game) {
+        return GameArchiveWriter.RESULTS[data.get(offsetOf(game) + 1) & 3];
+    }
+
+    /**
+     * Get the number of moves stored for a game, without decoding them
+     * @param game Index of the game
+     * @return Number of plies
+     */
+    public int getMoveCount(long game) {
+        return readVarint(offsetOf(game) + 2);
+    }
+
+    /**
+     * Get the start position of a game
+     * @param game Index of the game
+     * @return FEN string
+     */
+    public String getStartFen(long game) {
+        int offset = offsetOf(game);
+        if ((data.get(offset) & GameArchiveWriter.FLAG_FEN) == 0) {
+            return Fen.START_POSITION;
+        }
+        int at = skipVarint(offset + 2);
+        int length = readVarint(at);
+        at = skipVarint(at);
+        byte[] fen = new byte[length];
+        for (int i = 0; i < length; i++) {
+            fen[i] = data.get(at + i);
+        }
+        return new String(fen, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Decode the moves of a game
+     * @param game Index of the game
+     * @return Packed moves with flags (see {@link Move}), oldest first
+     */
+    public int[] getMoves(long game) {
+        BitboardPosition position = new BitboardPosition();
+        Fen.load(getStartFen(game), position);
+        int[] moves = new int[getMoveCount(game)];
+        int at = movesOffset(game);
+        MoveList legal = new MoveList();
+        for (int ply = 0; ply < moves.length; ply++) {
+            moves[ply] = decode(position, data.get(at + ply) & 0xFF, legal, game, ply);
+            position.makeMove(moves[ply]);
+        }
+        return moves;
+    }
+
+    /**
+     * Replay a game from its start position
+     * @param game Index of the game
+     * @return A game with every stored move played
+     */
+    public ChessGame replay(long game) {
+        return replay(game, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Replay the start of a game
+     * @param game Index of the game
+     * @param plies Number of moves to play; more than the game has plays them all
+     * @return A game with the first moves played
+     */
+    public ChessGame replay(long game, int plies) {
+        String fen = getStartFen(game);
+        ChessGame chessGame = fen.equals(Fen.START_POSITION) ? new ChessGame() : new ChessGame(fen);
+        int count = Math.min(plies, getMoveCount(game));
+        int at = movesOffset(game);
+        MoveList legal = new MoveList();
+        for (int ply = 0; ply < count; ply++) {
+            chessGame.getLegalMoves(legal);
+            int index = data.get(at + ply) & 0xFF;
+            if (index >= legal.size()) {
+                throw corrupt(game, ply);
+            }
+            chessGame.makeMove(legal.get(index));
+        }
+        return chessGame;
+    }
+
+    private int decode(BitboardPosition position, int index, MoveList legal, long game, int ply) {
+        MoveGenerator.generateLegal(position, legal);
+        if (index >= legal.size()) {
+            throw corrupt(game, ply);
+        }
+        return legal.get(index);
+    }
+
+    private IllegalStateException corrupt(long game, int ply) {
+        return new IllegalStateException("Corrupt move at ply " + ply + " of game " + game);
+    }
+
+    private int offsetOf(long game) {
+        if (game < 0 || game >= gameCount) {
+            throw new IndexOutOfBoundsException("Game " + game + " of " + gameCount);
+        }
+        return (int) data.getLong(indexOffset + (int) game * 8);
+    }
+
+    private int movesOffset(long game) {
+        int offset = offsetOf(game);
+        int at = skipVarint(offset + 2);
+        if ((data.get(offset) & GameArchiveWriter.FLAG_FEN) != 0) {
+            int length = readVarint(at);
+            at = skipVarint(at) + length;
+        }
+        return at;
+    }
+
+    private int readVarint(int at) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data.get(at++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private int skipVarint(int at) {
+        while (data.get(at) < 0) {
+            at++;
+        }
+        return at + 1;
+    }
+
+    /**
+     * Unmap by closing the channel; the mapping itself is released by the garbage collector
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        String usage = "Usage: java com.chessgame.archive.GameArchive games.cga [game number]";
+        if (args.length < 1) {
+            System.out.println(usage);
+            return;
+        }
+        try (GameArchive archive = new GameArchive(Paths.get(args[0]))) {
+            System.out.printf("%,d games%n", archive.size());
+            if (args.length > 1) {
+                long game = parseGameNumber(args[1], archive.size()) - 1;
+                if (game < 0) {
+                    System.out.println(usage);
+                    System.out.printf("Game numbers run from 1 to %,d%n", archive.size());
+                    return;
+                }
+                BitboardPosition position = new BitboardPosition();
+                Fen.load(archive.getStartFen(game), position);
+                MoveList scratch = new MoveList();
+                StringBuilder sb = new StringBuilder();
+                for (int move : archive.getMoves(game)) {
+                    sb.append(San.toSan(position, move, scratch)).append(' ');
+                    position.makeMove(move);
+                }
+                System.out.println(sb.append(archive.getResult(game)));
+                System.out.println(Fen.write(position));
+                return;
+            }
+
+            // Random access throughput
+            Random random = new Random(1);
+            int samples = (int) Math.min(100000, archive.size() * 4);
+            long moves = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < samples && archive.size() > 0; i++) {
+                moves += archive.getMoves((long) (random.nextDouble() * archive.size())).length;
+            }
+            long nanos = System.nanoTime() - start;
+            System.out.printf("%,d random games decoded (%,d moves) in %.3f s: %,.0f games/s%n",
+                    samples, moves, nanos / 1e9, samples * 1e9 / Math.max(1, nanos));
+        }
+    }
+
+    /**
+     * Read a 1-based game number
+     * @return The number, or 0 if it is not a number from 1 to the game count
+     */
+    private static long parseGameNumber(String text, long games) {
+        try {
+            long number = Long.parseLong(text);
+            return number >= 1 && number <= games ? number : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.chessgame.archive;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Fen;
+import com.chessgame.board.Move;
+import com.chessgame.board.MoveGenerator;
+import com.chessgame.board.MoveList;
+import com.chessgame.game.ChessGame;
+import com.chessgame.pgn.PgnReader;
+import com.chessgame.pgn.PgnStats;
+import com.chessgame.pieces.Piece;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes games to a compact binary archive that {@link GameArchive} reads back.
+ * Each move is stored as one byte: its index in the legal move list of the
+ * position it is played in, which the generator produces in a fixed order.
+ *
+ * Layout (little-endian):
+ * <pre>
+ *   header   magic "CGAR", version, game count (long), index offset (long)
+ *   records  per game: flags, result, varint move count,
+ *            [varint FEN length, FEN bytes if flag 1 is set], one byte per move
+ *   index    one long offset per game
+ * </pre>
+ * The header is written last, so an archive that was not closed is rejected.
+ *
+ * Usage:
+ *   java com.chessgame.archive.GameArchiveWriter games.pgn games.cga
+ */
+public class GameArchiveWriter implements Closeable {
+    static final int MAGIC = 0x52414743; // "CGAR" read little-endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int FLAG_FEN = 1;
+
+    static final String[] RESULTS = {"*", "1-0", "0-1", "1/2-1/2"};
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final BitboardPosition position = new BitboardPosition();
+    private final MoveList legal = new MoveList();
+    private byte[] moveBytes = new byte[256];
+    private long[] offsets = new long[1024];
+    private long games;
+    private long written;
+
+    /**
+     * Create an archive, replacing any existing file
+     * @param file Path of the archive
+     * @throws IOException if the file cannot be created
+     */
+    public GameArchiveWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.put(new byte[HEADER_SIZE]);
+    }
+
+    /**
+     * Append the moves played so far in a game. The result is 1-0 or 0-1 after
+     * checkmate, 1/2-1/2 after stalemate and * otherwise.
+     * @param game The game
+     * @return Index of the game in the archive
+     * @throws IOException if writing fails
+     */
+    public long add(ChessGame game) throws IOException {
+        String result = "*";
+        if (game.isGameOver()) {
+            if (!game.isKingInCheck(game.getCurrentPlayer())) {
+                result = "1/2-1/2";
+            } else {
+                result = game.getCurrentPlayer() == Piece.Color.WHITE ? "0-1" : "1-0";
+            }
+        }
+        return add(game, result);
+    }
+
+    /**
+     * Append the moves played so far in a game with a declared result
+     * @param game The game
+     * @param result "1-0", "0-1", "1/2-1/2" or "*"
+     * @return Index of the game in the archive
+     * @throws IOException if writing fails
+     */
+    public long add(ChessGame game, String result) throws IOException {
+        return add(game.getStartFen(), game.getMoveHistory(), game.getMoveCount(), result);
+    }
+
+    /**
+     * Append a game given as moves from a start position
+     * @param startFen The start position, or null for the standard one
+     * @param moves Packed moves (see {@link Move}); only the from, to and promotion parts are used
+     * @param count Number of moves to store
+     * @param result "1-0", "0-1", "1/2-1/2" or "*"
+     * @return Index of the game in the archive
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if a move is illegal or the result is unknown
+     */
+    public long add(String startFen, int[] moves, int count, String result) throws IOException {
+        int resultCode = Arrays.asList(RESULTS).indexOf(result);
+        if (resultCode < 0) {
+            throw new IllegalArgumentException("Unknown result: " + result);
+        }
+        boolean standard = startFen == null || startFen.equals(Fen.START_POSITION);
+        Fen.load(standard ? Fen.START_POSITION : startFen, position);
+
+        // Encode before writing anything, so an illegal move leaves the archive unchanged
+        if (moveBytes.length < count) {
+            moveBytes = new byte[Math.max(count, moveBytes.length * 2)];
+        }
+        for (int ply = 0; ply < count; ply++) {
+            int key = Move.key(moves[ply]);
+            MoveGenerator.generateLegal(position, legal);
+            int index = 0;
+            while (index < legal.size() && Move.key(legal.get(index)) != key) {
+                index++;
+            }
+            if (index == legal.size()) {
+                throw new IllegalArgumentException("Illegal move " + Move.toString(moves[ply]) + " at ply " + ply);
+            }
+            moveBytes[ply] = (byte) index;
+            position.makeMove(legal.get(index));
+        }
+
+        if (games == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[(int) games] = written + buffer.position();
+
+        ensure(1 + 1 + 5);
+        buffer.put((byte) (standard ? 0 : FLAG_FEN));
+        buffer.put((byte) resultCode);
+        putVarint(count);
+        if (!standard) {
+            byte[] fen = startFen.getBytes(StandardCharsets.US_ASCII);
+            ensure(5);
+            putVarint(fen.length);
+            put(fen, fen.length);
+        }
+        put(moveBytes, count);
+        return games++;
+    }
+
+    public long getGameCount() {
+        return games;
+    }
+
+    /**
+     * Write the index and header and close the file
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            long indexOffset = written + buffer.position();
+            for (long i = 0; i < games; i++) {
+                ensure(8);
+                buffer.putLong(offsets[(int) i]);
+            }
+            flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(games).putLong(indexOffset).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void putVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void put(byte[] bytes, int length) throws IOException {
+        int done = 0;
+        while (done < length) {
+            ensure(1);
+            int chunk = Math.min(length - done, buffer.remaining());
+            buffer.put(bytes, done, chunk);
+            done += chunk;
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        written += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Convert a PGN file; games that fail to replay are skipped and counted, since
+     * storing them up to the bad move would pair a cut-off game with its declared result
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java com.chessgame.archive.GameArchiveWriter games.pgn games.cga");
+            return;
+        }
+        long start = System.nanoTime();
+        PgnStats stats;
+        long stored;
+        try (GameArchiveWriter writer = new GameArchiveWriter(Paths.get(args[1]))) {
+            PgnReader reader = new PgnReader(game -> {
+                if (game.hasError()) {
+                    return;
+                }
+                try {
+                    writer.add(game.getGame(), game.getResult());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            stats = reader.read(Paths.get(args[0]));
+            stored = writer.getGameCount();
+        }
+        long bytes = Files.size(Paths.get(args[1]));
+        System.out.printf("%,d games stored, %,d skipped with errors, %,d moves read:"
+                        + " %,d PGN bytes -> %,d archive bytes (%.1fx) in %.3f s%n",
+                stored, stats.getFailedGames(), stats.getMoves(), stats.getBytes(), bytes,
+                (double) stats.getBytes() / bytes, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,740 @@
+package com.chessgame.board;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard representation of a chess position.
+ * Keeps one 64-bit set per piece type and color, plus occupancy masks per color,
+ * so that attack and move queries are answered with bit operations instead of
+ * scanning the 64 squares of the board.
+ * Moves are applied in place with {@link #makeMove(int, int, int)} and reverted
+ * exactly with {@link #unmakeMove()}; each ply pushes one packed long undo record.
+ * A Zobrist key of the position is updated incrementally with every change.
+ */
+public class BitboardPosition {
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    /** Marker returned by {@link #getPieceAt(int)} for an empty square */
+    public static final int NO_PIECE = -1;
+
+    // Castling rights bits
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    // Move kinds stored in the undo record
+    private static final int NORMAL_MOVE = 0;
+    private static final int CASTLING = 1;
+    private static final int EN_PASSANT = 2;
+    private static final int PROMOTION = 3;
+
+    // Castling rights that survive a move touching each square
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, ALL_CASTLING);
+        CASTLING_MASK[60] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE); // e1
+        CASTLING_MASK[63] &= ~WHITE_KINGSIDE;                     // h1
+        CASTLING_MASK[56] &= ~WHITE_QUEENSIDE;                    // a1
+        CASTLING_MASK[4] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);  // e8
+        CASTLING_MASK[7] &= ~BLACK_KINGSIDE;                      // h8
+        CASTLING_MASK[0] &= ~BLACK_QUEENSIDE;                     // a8
+    }
+
+    private final long[] pieces = new long[12];
+    private final long[] occupancy = new long[2];
+    private long occupied;
+    private final byte[] mailbox = new byte[64];
+    private final int[] kingSquares = new int[2];
+
+    private int sideToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int halfmoveClock;
+    private int fullmoveNumber;
+
+    private long hash;
+    // The en passant part of the hash, zero unless a pawn can capture en passant
+    private long enPassantKey;
+
+    // Checkers, pinned pieces and king danger squares of the side to move,
+    // computed on first use after each change
+    private long checkers;
+    private long pinned;
+    private long kingDanger;
+    private boolean checkInfoValid;
+    private boolean kingDangerValid;
+
+    // Undo records of the moves made so far, see packUndo, and the key before each move
+    private long[] history = new long[256];
+    private long[] hashHistory = new long[256];
+    private int ply;
+
+    public BitboardPosition() {
+        clear();
+    }
+
+    /**
+     * Create an independent copy of a position, including its move history
+     * @param other The position to copy
+     */
+    public BitboardPosition(BitboardPosition other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.occupancy, 0, occupancy, 0, occupancy.length);
+        System.arraycopy(other.mailbox, 0, mailbox, 0, mailbox.length);
+        kingSquares[WHITE] = other.kingSquares[WHITE];
+        kingSquares[BLACK] = other.kingSquares[BLACK];
+        occupied = other.occupied;
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        hash = other.hash;
+        enPassantKey = other.enPassantKey;
+        history = other.history.clone();
+        hashHistory = other.hashHistory.clone();
+        ply = other.ply;
+    }
+
+    /**
+     * Get the piece code (0-11) for a color and piece type
+     * @param color WHITE or BLACK
+     * @param type PAWN through KING
+     * @return Index into the piece sets
+     */
+    public static int pieceCode(int color, int type) {
+        return color * 6 + type;
+    }
+
+    public static int colorOf(int pieceCode) {
+        return pieceCode / 6;
+    }
+
+    public static int typeOf(int pieceCode) {
+        return pieceCode % 6;
+    }
+
+    /**
+     * Remove all pieces from the position and reset the game state
+     */
+    public void clear() {
+        for (int i = 0; i < pieces.length; i++) {
+            pieces[i] = 0L;
+        }
+        occupancy[WHITE] = 0L;
+        occupancy[BLACK] = 0L;
+        occupied = 0L;
+        for (int sq = 0; sq < 64; sq++) {
+            mailbox[sq] = NO_PIECE;
+        }
+        kingSquares[WHITE] = -1;
+        kingSquares[BLACK] = -1;
+        checkInfoValid = false;
+        sideToMove = WHITE;
+        castlingRights = 0;
+        enPassantSquare = -1;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        ply = 0;
+        hash = 0L;
+        enPassantKey = 0L;
+    }
+
+    /**
+     * Place a piece on an empty square
+     * @param color WHITE or BLACK
+     * @param type PAWN through KING
+     * @param square Square index 0-63
+     */
+    public void addPiece(int color, int type, int square) {
+        int code = pieceCode(color, type);
+        long mask = Bitboards.bit(square);
+        pieces[code] |= mask;
+        occupancy[color] |= mask;
+        occupied |= mask;
+        mailbox[square] = (byte) code;
+        if (type == KING) {
+            kingSquares[color] = square;
+        }
+        hash ^= Zobrist.pieceKey(code, square);
+        checkInfoValid = false;
+    }
+
+    /**
+     * Remove whatever piece stands on a square
+     * @param square Square index 0-63
+     * @return The removed piece code, or NO_PIECE if the square was empty
+     */
+    public int removePiece(int square) {
+        int code = mailbox[square];
+        if (code != NO_PIECE) {
+            long mask = ~Bitboards.bit(square);
+            pieces[code] &= mask;
+            occupancy[colorOf(code)] &= mask;
+            occupied &= mask;
+            mailbox[square] = NO_PIECE;
+            if (typeOf(code) == KING) {
+                long king = pieces[code];
+                kingSquares[colorOf(code)] = king == 0 ? -1 : Bitboards.lowestSquare(king);
+            }
+            hash ^= Zobrist.pieceKey(code, square);
+            checkInfoValid = false;
+        }
+        return code;
+    }
+
+    /**
+     * Move a piece, removing anything that stood on the destination square
+     * @param from Starting square
+     * @param to Destination square
+     * @return The captured piece code, or NO_PIECE
+     */
+    public int movePiece(int from, int to) {
+        int captured = removePiece(to);
+        int code = removePiece(from);
+        if (code != NO_PIECE) {
+            addPiece(colorOf(code), typeOf(code), to);
+        }
+        return captured;
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(int color) {
+        if (color != sideToMove) {
+            hash ^= Zobrist.SIDE_KEY;
+            checkInfoValid = false;
+        }
+        this.sideToMove = color;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public void setCastlingRights(int castlingRights) {
+        hash ^= Zobrist.castlingKey(this.castlingRights) ^ Zobrist.castlingKey(castlingRights);
+        this.castlingRights = castlingRights;
+    }
+
+    /**
+     * Get the square a pawn may capture onto en passant
+     * @return Square index, or -1 if no en passant capture is possible
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /**
+     * Set the square a pawn may capture onto en passant. Place the pieces first:
+     * the square only affects the hash when a pawn stands ready to capture.
+     * @param square Square index, or -1 for none
+     */
+    public void setEnPassantSquare(int square) {
+        this.enPassantSquare = square;
+        hash ^= enPassantKey;
+        enPassantKey = Zobrist.enPassantKey(this, square);
+        hash ^= enPassantKey;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    public void setFullmoveNumber(int fullmoveNumber) {
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    /**
+     * Get the Zobrist key of the position, covering piece placement, side to move,
+     * castling rights and en passant file (only when an en passant capture is possible)
+     * @return 64-bit position key
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Check whether the current position occurred before since the last
+     * capture or pawn move, with the same side to move
+     * @return true if the position is a repetition
+     */
+    public boolean isRepetition() {
+        int earliest = Math.max(0, ply - halfmoveClock);
+        for (int i = ply - 2; i >= earliest; i -= 2) {
+            if (hashHistory[i] == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of moves that can currently be unmade
+     * @return Depth of the undo stack
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    public int getPieceAt(int square) {
+        return mailbox[square];
+    }
+
+    public long getPieces(int color, int type) {
+        return pieces[pieceCode(color, type)];
+    }
+
+    public long getOccupancy(int color) {
+        return occupancy[color];
+    }
+
+    public long getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * Find the king of a color
+     * @param color WHITE or BLACK
+     * @return The king's square, or -1 if there is no king
+     */
+    public int getKingSquare(int color) {
+        return kingSquares[color];
+    }
+
+    /**
+     * Check whether any piece of a color attacks a square
+     * @param square The square to test
+     * @param byColor The attacking color
+     * @return true if the square is attacked
+     */
+    public boolean isSquareAttacked(int square, int byColor) {
+        return isSquareAttacked(square, byColor, occupied);
+    }
+
+    /**
+     * Check whether a square is attacked with sliders seeing through a given occupancy
+     */
+    private boolean isSquareAttacked(int square, int byColor, long occupied) {
+        int base = byColor * 6;
+        // A pawn of byColor attacks the square if a pawn of the other color on it would attack the pawn
+        if ((Bitboards.PAWN_ATTACKS[byColor ^ 1][square] & pieces[base + PAWN]) != 0) {
+            return true;
+        }
+        if ((Bitboards.KNIGHT_ATTACKS[square] & pieces[base + KNIGHT]) != 0) {
+            return true;
+        }
+        if ((Bitboards.KING_ATTACKS[square] & pieces[base + KING]) != 0) {
+            return true;
+        }
+        long queens = pieces[base + QUEEN];
+        if ((Bitboards.rookAttacks(square, occupied) & (pieces[base + ROOK] | queens)) != 0) {
+            return true;
+        }
+        return (Bitboards.bishopAttacks(square, occupied) & (pieces[base + BISHOP] | queens)) != 0;
+    }
+
+    /**
+     * Check whether the king of a color is attacked
+     * @param color WHITE or BLACK
+     * @return true if that king is in check
+     */
+    public boolean isInCheck(int color) {
+        if (color == sideToMove) {
+            return getCheckers() != 0;
+        }
+        int king = kingSquares[color];
+        return king >= 0 && isSquareAttacked(king, color ^ 1);
+    }
+
+    /**
+     * Get the enemy pieces giving check to the side to move
+     * @return Bitboard of checking pieces, empty if not in check
+     */
+    public long getCheckers() {
+        if (!checkInfoValid) {
+            updateCheckInfo();
+        }
+        return checkers;
+    }
+
+    /**
+     * Get the pieces of the side to move that are pinned to their own king
+     * @return Bitboard of pinned pieces
+     */
+    public long getPinned() {
+        if (!checkInfoValid) {
+            updateCheckInfo();
+        }
+        return pinned;
+    }
+
+    /**
+     * Check whether a pseudo-legal move of the side to move would leave its king in check.
+     * Uses the cached checkers and pins, so apart from en passant no move is played.
+     * @param from Starting square
+     * @param to Destination square
+     * @return true if the move is illegal because of the king
+     */
+    public boolean leavesKingInCheck(int from, int to) {
+        int us = sideToMove;
+        int king = kingSquares[us];
+        if (king < 0) {
+            return false;
+        }
+        int type = typeOf(mailbox[from]);
+        if (type == KING) {
+            // Sliders keep attacking through the square the king leaves
+            return isSquareAttacked(to, us ^ 1, occupied ^ Bitboards.bit(from));
+        }
+        if (type == PAWN && to == enPassantSquare) {
+            // Two pieces leave the rank at once; just try it
+            makeMove(from, to, QUEEN);
+            boolean inCheck = isSquareAttacked(king, us ^ 1);
+            unmakeMove();
+            return inCheck;
+        }
+
+        long checking = getCheckers();
+        if (checking != 0) {
+            if ((checking & (checking - 1)) != 0) {
+                return true; // Double check: only the king can move
+            }
+            long evasions = checking | Bitboards.BETWEEN[king][Bitboards.lowestSquare(checking)];
+            if ((evasions & Bitboards.bit(to)) == 0) {
+                return true;
+            }
+        }
+        return (pinned & Bitboards.bit(from)) != 0 && (Bitboards.LINE[king][from] & Bitboards.bit(to)) == 0;
+    }
+
+    /**
+     * Get the squares the king of the side to move may not step onto.
+     * The king itself is removed from the occupancy, so it cannot hide behind
+     * itself from a slider it is retreating from.
+     * @return Bitboard of squares attacked by the opponent
+     */
+    public long getKingDangerSquares() {
+        if (!checkInfoValid) {
+            updateCheckInfo();
+        }
+        if (!kingDangerValid) {
+            int us = sideToMove;
+            int king = kingSquares[us];
+            long occupancy = king < 0 ? occupied : occupied ^ Bitboards.bit(king);
+            kingDanger = getAttacks(us ^ 1, occupancy);
+            kingDangerValid = true;
+        }
+        return kingDanger;
+    }
+
+    /**
+     * Get every square attacked by a color
+     * @param color The attacking color
+     * @param occupancy Occupied squares that block sliders
+     * @return Bitboard of attacked squares
+     */
+    private long getAttacks(int color, long occupancy) {
+        int base = color * 6;
+        long pawns = pieces[base + PAWN];
+        long attacks = color == WHITE
+                ? ((pawns & ~Bitboards.FILE_A) >>> 9) | ((pawns & ~Bitboards.FILE_H) >>> 7)
+                : ((pawns & ~Bitboards.FILE_A) << 7) | ((pawns & ~Bitboards.FILE_H) << 9);
+        long knights = pieces[base + KNIGHT];
+        while (knights != 0) {
+            attacks |= Bitboards.KNIGHT_ATTACKS[Bitboards.lowestSquare(knights)];
+            knights &= knights - 1;
+        }
+        long queens = pieces[base + QUEEN];
+        long diagonal = pieces[base + BISHOP] | queens;
+        while (diagonal != 0) {
+            attacks |= Bitboards.bishopAttacks(Bitboards.lowestSquare(diagonal), occupancy);
+            diagonal &= diagonal - 1;
+        }
+        long straight = pieces[base + ROOK] | queens;
+        while (straight != 0) {
+            attacks |= Bitboards.rookAttacks(Bitboards.lowestSquare(straight), occupancy);
+            straight &= straight - 1;
+        }
+        if (kingSquares[color] >= 0) {
+            attacks |= Bitboards.KING_ATTACKS[kingSquares[color]];
+        }
+        return attacks;
+    }
+
+    private void updateCheckInfo() {
+        checkers = 0L;
+        pinned = 0L;
+        checkInfoValid = true;
+        kingDangerValid = false;
+        int us = sideToMove;
+        int king = kingSquares[us];
+        if (king < 0) {
+            return;
+        }
+        int base = (us ^ 1) * 6;
+        long queens = pieces[base + QUEEN];
+        long rooks = pieces[base + ROOK] | queens;
+        long bishops = pieces[base + BISHOP] | queens;
+
+        checkers = (Bitboards.PAWN_ATTACKS[us][king] & pieces[base + PAWN])
+                | (Bitboards.KNIGHT_ATTACKS[king] & pieces[base + KNIGHT]);
+
+        // Enemy sliders on an open line to the king either give check or pin one piece
+        long snipers = (Bitboards.rookAttacks(king, 0L) & rooks) | (Bitboards.bishopAttacks(king, 0L) & bishops);
+        while (snipers != 0) {
+            int sniper = Bitboards.lowestSquare(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.BETWEEN[king][sniper] & occupied;
+            if (blockers == 0) {
+                checkers |= Bitboards.bit(sniper);
+            } else if ((blockers & (blockers - 1)) == 0 && (blockers & occupancy[us]) != 0) {
+                pinned |= blockers;
+            }
+        }
+    }
+
+    /**
+     * Get the pseudo-legal destination squares of the piece on a square.
+     * Own-king safety is not considered.
+     * @param square The square of the moving piece
+     * @return Bitboard of destination squares, empty if the square is empty
+     */
+    public long getTargets(int square) {
+        int code = mailbox[square];
+        if (code == NO_PIECE) {
+            return 0L;
+        }
+        int color = colorOf(code);
+        long notOwn = ~occupancy[color];
+
+        switch (typeOf(code)) {
+            case PAWN:
+                return pawnTargets(square, color);
+            case KNIGHT:
+                return Bitboards.KNIGHT_ATTACKS[square] & notOwn;
+            case BISHOP:
+                return Bitboards.bishopAttacks(square, occupied) & notOwn;
+            case ROOK:
+                return Bitboards.rookAttacks(square, occupied) & notOwn;
+            case QUEEN:
+                return Bitboards.queenAttacks(square, occupied) & notOwn;
+            case KING:
+                return (Bitboards.KING_ATTACKS[square] & notOwn) | castlingTargets(square, color);
+            default:
+                return 0L;
+        }
+    }
+
+    private long pawnTargets(int square, int color) {
+        long enemies = occupancy[color ^ 1];
+        if (enPassantSquare >= 0 && color == sideToMove) {
+            enemies |= Bitboards.bit(enPassantSquare);
+        }
+        long targets = Bitboards.PAWN_ATTACKS[color][square] & enemies;
+        int forward = (color == WHITE) ? square - 8 : square + 8;
+        if (forward >= 0 && forward < 64 && mailbox[forward] == NO_PIECE) {
+            targets |= Bitboards.bit(forward);
+            int startRow = (color == WHITE) ? 6 : 1;
+            int doubleForward = (color == WHITE) ? square - 16 : square + 16;
+            if (Bitboards.rowOf(square) == startRow && mailbox[doubleForward] == NO_PIECE) {
+                targets |= Bitboards.bit(doubleForward);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Castling destinations for a king still on its home square. The king may not
+     * castle out of or through check; landing in check is left to the legality test.
+     */
+    private long castlingTargets(int square, int color) {
+        long targets = 0L;
+        int rights = castlingRights;
+        if (color == WHITE) {
+            if (square != 60 || (rights & (WHITE_KINGSIDE | WHITE_QUEENSIDE)) == 0 || isSquareAttacked(60, BLACK)) {
+                return 0L;
+            }
+            int rook = pieceCode(WHITE, ROOK);
+            if ((rights & WHITE_KINGSIDE) != 0 && mailbox[63] == rook
+                    && mailbox[61] == NO_PIECE && mailbox[62] == NO_PIECE && !isSquareAttacked(61, BLACK)) {
+                targets |= Bitboards.bit(62);
+            }
+            if ((rights & WHITE_QUEENSIDE) != 0 && mailbox[56] == rook && mailbox[57] == NO_PIECE
+                    && mailbox[58] == NO_PIECE && mailbox[59] == NO_PIECE && !isSquareAttacked(59, BLACK)) {
+                targets |= Bitboards.bit(58);
+            }
+        } else {
+            if (square != 4 || (rights & (BLACK_KINGSIDE | BLACK_QUEENSIDE)) == 0 || isSquareAttacked(4, WHITE)) {
+                return 0L;
+            }
+            int rook = pieceCode(BLACK, ROOK);
+            if ((rights & BLACK_KINGSIDE) != 0 && mailbox[7] == rook
+                    && mailbox[5] == NO_PIECE && mailbox[6] == NO_PIECE && !isSquareAttacked(5, WHITE)) {
+                targets |= Bitboards.bit(6);
+            }
+            if ((rights & BLACK_QUEENSIDE) != 0 && mailbox[0] == rook && mailbox[1] == NO_PIECE
+                    && mailbox[2] == NO_PIECE && mailbox[3] == NO_PIECE && !isSquareAttacked(3, WHITE)) {
+                targets |= Bitboards.bit(2);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Play a move in place. Castling, en passant and promotion are recognised from
+     * the moving piece and squares; the move is assumed to be pseudo-legal.
+     * @param from Starting square
+     * @param to Destination square
+     * @param promotionType Piece type a pawn promotes to on the last row
+     */
+    public void makeMove(int from, int to, int promotionType) {
+        int code = mailbox[from];
+        int color = colorOf(code);
+        int type = typeOf(code);
+
+        int kind = NORMAL_MOVE;
+        int capturedSquare = to;
+        if (type == PAWN) {
+            if (to == enPassantSquare) {
+                kind = EN_PASSANT;
+                capturedSquare = (color == WHITE) ? to + 8 : to - 8;
+            } else if (Bitboards.rowOf(to) == 0 || Bitboards.rowOf(to) == 7) {
+                kind = PROMOTION;
+            }
+        } else if (type == KING && (to - from == 2 || from - to == 2)) {
+            kind = CASTLING;
+        }
+
+        int captured = mailbox[capturedSquare];
+        push(packUndo(from, to, kind, captured));
+
+        if (captured != NO_PIECE) {
+            removePiece(capturedSquare);
+        }
+        removePiece(from);
+        addPiece(color, kind == PROMOTION ? promotionType : type, to);
+
+        if (kind == CASTLING) {
+            // Rook jumps to the square the king passed over
+            int rookFrom = (to > from) ? from + 3 : from - 4;
+            int rookTo = (to > from) ? from + 1 : from - 1;
+            removePiece(rookFrom);
+            addPiece(color, ROOK, rookTo);
+        }
+
+        int rights = castlingRights & CASTLING_MASK[from] & CASTLING_MASK[to];
+        hash ^= Zobrist.castlingKey(castlingRights) ^ Zobrist.castlingKey(rights);
+        castlingRights = rights;
+        hash ^= enPassantKey;
+        enPassantKey = 0L;
+        enPassantSquare = -1;
+        if (type == PAWN && (to - from == 16 || from - to == 16)) {
+            enPassantSquare = (from + to) >>> 1;
+            enPassantKey = Zobrist.enPassantKey(this, enPassantSquare);
+            hash ^= enPassantKey;
+        }
+        hash ^= Zobrist.SIDE_KEY;
+        halfmoveClock = (type == PAWN || captured != NO_PIECE) ? 0 : halfmoveClock + 1;
+        if (color == BLACK) {
+            fullmoveNumber++;
+        }
+        sideToMove = color ^ 1;
+        checkInfoValid = false;
+    }
+
+    /**
+     * Play a packed move in place
+     * @param move Move packed with {@link Move#encode(int, int, int)}
+     */
+    public void makeMove(int move) {
+        int promotion = Move.promotion(move);
+        makeMove(Move.from(move), Move.to(move), promotion == 0 ? QUEEN : promotion);
+    }
+
+    /**
+     * Revert the most recent move made with {@link #makeMove(int, int, int)}
+     */
+    public void unmakeMove() {
+        long undo = history[--ply];
+        int from = (int) (undo & 63);
+        int to = (int) ((undo >>> 6) & 63);
+        int kind = (int) ((undo >>> 12) & 3);
+        int captured = (int) ((undo >>> 14) & 15) - 1;
+
+        int color = sideToMove ^ 1;
+        int code = removePiece(to);
+        addPiece(color, kind == PROMOTION ? PAWN : typeOf(code), from);
+
+        if (captured != NO_PIECE) {
+            int capturedSquare = to;
+            if (kind == EN_PASSANT) {
+                capturedSquare = (color == WHITE) ? to + 8 : to - 8;
+            }
+            addPiece(colorOf(captured), typeOf(captured), capturedSquare);
+        }
+        if (kind == CASTLING) {
+            int rookFrom = (to > from) ? from + 3 : from - 4;
+            int rookTo = (to > from) ? from + 1 : from - 1;
+            removePiece(rookTo);
+            addPiece(color, ROOK, rookFrom);
+        }
+
+        castlingRights = (int) ((undo >>> 18) & 15);
+        enPassantSquare = (int) ((undo >>> 22) & 127) - 1;
+        // The pieces are back as they were when the square was set, so the key is too
+        enPassantKey = Zobrist.enPassantKey(this, enPassantSquare);
+        halfmoveClock = (int) ((undo >>> 29) & 0xFFFF);
+        if (color == BLACK) {
+            fullmoveNumber--;
+        }
+        sideToMove = color;
+        checkInfoValid = false;
+        hash = hashHistory[ply];
+    }
+
+    /**
+     * Pack everything needed to revert a move into one long:
+     * from (6 bits), to (6), move kind (2), captured piece code + 1 (4),
+     * castling rights (4), en passant square + 1 (7), halfmove clock (16)
+     */
+    private long packUndo(int from, int to, int kind, int captured) {
+        return from
+                | (long) to << 6
+                | (long) kind << 12
+                | (long) (captured + 1) << 14
+                | (long) castlingRights << 18
+                | (long) (enPassantSquare + 1) << 22
+                | (long) (halfmoveClock & 0xFFFF) << 29;
+    }
+
+    private void push(long undo) {
+        if (ply == history.length) {
+            history = Arrays.copyOf(history, ply * 2);
+            hashHistory = Arrays.copyOf(hashHistory, ply * 2);
+        }
+        hashHistory[ply] = hash;
+        history[ply++] = undo;
+    }
+}
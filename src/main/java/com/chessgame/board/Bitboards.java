@@ -0,0 +1,148 @@
+package com.chessgame.board;
+
+/**
+ * Static bitboard helpers and precomputed attack tables.
+ * Squares are indexed 0-63 as row * 8 + col, matching Position (a8 = 0, h1 = 63).
+ */
+public final class Bitboards {
+    public static final long EMPTY = 0L;
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long ROW_0 = 0xFFL;          // rank 8
+    public static final long ROW_7 = 0xFFL << 56;    // rank 1
+
+    public static final long[] KNIGHT_ATTACKS = new long[64];
+    public static final long[] KING_ATTACKS = new long[64];
+    /** Pawn capture targets indexed by [color][square]; color 0 = white, 1 = black */
+    public static final long[][] PAWN_ATTACKS = new long[2][64];
+    /** Squares strictly between two squares on a shared rank, file or diagonal, else empty */
+    public static final long[][] BETWEEN = new long[64][64];
+    /** The whole rank, file or diagonal through two aligned squares, else empty */
+    public static final long[][] LINE = new long[64][64];
+
+    static {
+        int[] knightRows = {-2, -2, -1, -1, 1, 1, 2, 2};
+        int[] knightCols = {-1, 1, -2, 2, -2, 2, -1, 1};
+        int[] kingRows = {-1, -1, -1, 0, 0, 1, 1, 1};
+        int[] kingCols = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+        for (int sq = 0; sq < 64; sq++) {
+            int row = sq >>> 3;
+            int col = sq & 7;
+            for (int i = 0; i < 8; i++) {
+                KNIGHT_ATTACKS[sq] |= maskOf(row + knightRows[i], col + knightCols[i]);
+                KING_ATTACKS[sq] |= maskOf(row + kingRows[i], col + kingCols[i]);
+            }
+            // White pawns move towards row 0, black pawns towards row 7
+            PAWN_ATTACKS[0][sq] = maskOf(row - 1, col - 1) | maskOf(row - 1, col + 1);
+            PAWN_ATTACKS[1][sq] = maskOf(row + 1, col - 1) | maskOf(row + 1, col + 1);
+        }
+
+        for (int sq = 0; sq < 64; sq++) {
+            for (int dir = 0; dir < 8; dir++) {
+                int dRow = kingRows[dir];
+                int dCol = kingCols[dir];
+                long ray = rayFrom(sq, dRow, dCol) | rayFrom(sq, -dRow, -dCol) | bit(sq);
+                long between = EMPTY;
+                int row = rowOf(sq) + dRow;
+                int col = colOf(sq) + dCol;
+                while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                    int target = square(row, col);
+                    BETWEEN[sq][target] = between;
+                    LINE[sq][target] = ray;
+                    between |= bit(target);
+                    row += dRow;
+                    col += dCol;
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    /**
+     * Get the square index for board coordinates
+     * @param row The row (0 = rank 8)
+     * @param col The column (0 = file a)
+     * @return Square index 0-63
+     */
+    public static int square(int row, int col) {
+        return (row << 3) | col;
+    }
+
+    public static int rowOf(int square) {
+        return square >>> 3;
+    }
+
+    public static int colOf(int square) {
+        return square & 7;
+    }
+
+    /**
+     * Get a single-bit mask for a square
+     * @param square Square index 0-63
+     * @return Bitboard with only that square set
+     */
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * Get the lowest set square of a bitboard
+     * @param bitboard A non-empty bitboard
+     * @return Square index of the least significant set bit
+     */
+    public static int lowestSquare(long bitboard) {
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    /**
+     * All squares from a square (exclusive) to the edge in one direction
+     */
+    private static long rayFrom(int square, int dRow, int dCol) {
+        long ray = EMPTY;
+        int row = rowOf(square) + dRow;
+        int col = colOf(square) + dCol;
+        while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+            ray |= bit(square(row, col));
+            row += dRow;
+            col += dCol;
+        }
+        return ray;
+    }
+
+    /**
+     * Mask for coordinates that may lie off the board
+     */
+    private static long maskOf(int row, int col) {
+        if (row < 0 || row >= 8 || col < 0 || col >= 8) {
+            return EMPTY;
+        }
+        return bit(square(row, col));
+    }
+
+    /**
+     * Rook attacks from a square given the board occupancy
+     * @param square The rook's square
+     * @param occupied All occupied squares
+     * @return Attacked squares, including the first blocker in each direction
+     */
+    public static long rookAttacks(int square, long occupied) {
+        return MagicBitboards.rookAttacks(square, occupied);
+    }
+
+    /**
+     * Bishop attacks from a square given the board occupancy
+     * @param square The bishop's square
+     * @param occupied All occupied squares
+     * @return Attacked squares, including the first blocker in each direction
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        return MagicBitboards.bishopAttacks(square, occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return MagicBitboards.rookAttacks(square, occupied) | MagicBitboards.bishopAttacks(square, occupied);
+    }
+}
@@ -1,19 +1,47 @@
 package com.chessgame.board;
 
 import com.chessgame.pieces.*;
+import java.util.Arrays;
 
 /**
- * Represents the chess board and manages piece positions
+ * Represents the chess board and manages piece positions.
+ * Piece objects are kept in a grid for the GUI and the piece classes, while a
+ * BitboardPosition mirrors every change for fast attack and move queries.
  */
 public class ChessBoard {
     private Piece[][] board;
+    private final BitboardPosition bitboards;
     private static final int BOARD_SIZE = 8;
     
+    // Flags kept per move so the piece grid can be restored by unmakeMove
+    private static final int HAD_MOVED = 1;
+    private static final int ROOK_HAD_MOVED = 2;
+    private static final int EN_PASSANT = 4;
+    private static final int CASTLING = 8;
+    private static final int PROMOTION = 16;
+    
+    private Piece[] movedPieces = new Piece[64];
+    private Piece[] capturedPieces = new Piece[64];
+    private int[] moveFlags = new int[64];
+    private int moveCount;
+    
     public ChessBoard() {
         board = new Piece[BOARD_SIZE][BOARD_SIZE];
+        bitboards = new BitboardPosition();
         initializeBoard();
     }
     
+    /**
+     * Create a board set up from a FEN string
+     * @param fen The position in Forsyth-Edwards Notation
+     */
+    public ChessBoard(String fen) {
+        board = new Piece[BOARD_SIZE][BOARD_SIZE];
+        bitboards = new BitboardPosition();
+        Fen.load(fen, bitboards);
+        syncGrid();
+    }
+    
     /**
      * Initialize the board with pieces in starting positions
      */
@@ -30,6 +58,51 @@ public class ChessBoard {
         
         // Place black pieces (top of board)
         setupPiecesForColor(Piece.Color.BLACK, 0, 1);
+        
+        syncBitboards();
+        bitboards.setCastlingRights(BitboardPosition.ALL_CASTLING);
+        moveCount = 0;
+    }
+    
+    /**
+     * Rebuild the bitboard mirror from the piece grid
+     */
+    private void syncBitboards() {
+        bitboards.clear();
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            for (int col = 0; col < BOARD_SIZE; col++) {
+                Piece piece = board[row][col];
+                if (piece != null) {
+                    bitboards.addPiece(piece.getColor().ordinal(), piece.getTypeIndex(), Bitboards.square(row, col));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Rebuild the piece grid from the bitboards
+     */
+    private void syncGrid() {
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            for (int col = 0; col < BOARD_SIZE; col++) {
+                int code = bitboards.getPieceAt(Bitboards.square(row, col));
+                if (code == BitboardPosition.NO_PIECE) {
+                    board[row][col] = null;
+                    continue;
+                }
+                Piece.Color color = BitboardPosition.colorOf(code) == BitboardPosition.WHITE
+                        ? Piece.Color.WHITE : Piece.Color.BLACK;
+                Position position = Position.of(row, col);
+                Piece piece = createPiece(color, BitboardPosition.typeOf(code), position);
+                // Pawns off their starting row can no longer make a double step
+                int pawnRow = (color == Piece.Color.WHITE) ? 6 : 1;
+                if (piece instanceof Pawn && row != pawnRow) {
+                    piece.restorePosition(position, true);
+                }
+                board[row][col] = piece;
+            }
+        }
+        moveCount = 0;
     }
     
     /**
@@ -41,28 +114,28 @@ public class ChessBoard {
     private void setupPiecesForColor(Piece.Color color, int backRow, int pawnRow) {
         // Place pawns
         for (int col = 0; col < BOARD_SIZE; col++) {
-            Position pawnPos = new Position(pawnRow, col);
+            Position pawnPos = Position.of(pawnRow, col);
             board[pawnRow][col] = new Pawn(color, pawnPos);
         }
         
         // Place major pieces
-        Position rookPos1 = new Position(backRow, 0);
-        Position rookPos2 = new Position(backRow, 7);
+        Position rookPos1 = Position.of(backRow, 0);
+        Position rookPos2 = Position.of(backRow, 7);
         board[backRow][0] = new Rook(color, rookPos1);
         board[backRow][7] = new Rook(color, rookPos2);
         
-        Position knightPos1 = new Position(backRow, 1);
-        Position knightPos2 = new Position(backRow, 6);
+        Position knightPos1 = Position.of(backRow, 1);
+        Position knightPos2 = Position.of(backRow, 6);
         board[backRow][1] = new Knight(color, knightPos1);
         board[backRow][6] = new Knight(color, knightPos2);
         
-        Position bishopPos1 = new Position(backRow, 2);
-        Position bishopPos2 = new Position(backRow, 5);
+        Position bishopPos1 = Position.of(backRow, 2);
+        Position bishopPos2 = Position.of(backRow, 5);
         board[backRow][2] = new Bishop(color, bishopPos1);
         board[backRow][5] = new Bishop(color, bishopPos2);
         
-        Position queenPos = new Position(backRow, 3);
-        Position kingPos = new Position(backRow, 4);
+        Position queenPos = Position.of(backRow, 3);
+        Position kingPos = Position.of(backRow, 4);
         board[backRow][3] = new Queen(color, queenPos);
         board[backRow][4] = new King(color, kingPos);
     }
@@ -114,10 +187,158 @@ public class ChessBoard {
         // Move piece on board
         board[to.getRow()][to.getCol()] = piece;
         board[from.getRow()][from.getCol()] = null;
+        bitboards.movePiece(from.getSquare(), to.getSquare());
+        
+        return true;
+    }
+    
+    /**
+     * Play a move for the side to move, including castling, en passant and promotion.
+     * Both the piece grid and the bitboards are updated in place and the move can be
+     * taken back exactly with {@link #unmakeMove()}.
+     * @param from The starting position
+     * @param to The destination position
+     * @param promotionType Piece type a pawn promotes to, one of the BitboardPosition constants
+     * @return true if the move was made, false if there is no piece to move
+     */
+    public boolean makeMove(Position from, Position to, int promotionType) {
+        if (!from.isValid() || !to.isValid()) {
+            return false;
+        }
+        
+        Piece piece = getPiece(from);
+        if (piece == null) {
+            return false;
+        }
+        
+        ensureUndoCapacity();
+        int flags = piece.hasMoved() ? HAD_MOVED : 0;
+        Piece captured = board[to.getRow()][to.getCol()];
+        
+        // A pawn moving diagonally onto an empty square captures en passant
+        if (piece instanceof Pawn && captured == null && from.getCol() != to.getCol()) {
+            flags |= EN_PASSANT;
+            captured = board[from.getRow()][to.getCol()];
+            board[from.getRow()][to.getCol()] = null;
+        }
+        
+        bitboards.makeMove(from.getSquare(), to.getSquare(), promotionType);
+        
+        board[from.getRow()][from.getCol()] = null;
+        if (piece instanceof Pawn && (to.getRow() == 0 || to.getRow() == BOARD_SIZE - 1)) {
+            flags |= PROMOTION;
+            board[to.getRow()][to.getCol()] = createPiece(piece.getColor(), promotionType, to);
+        } else {
+            piece.setPosition(to);
+            board[to.getRow()][to.getCol()] = piece;
+        }
+        
+        if (piece instanceof King && Math.abs(to.getCol() - from.getCol()) == 2) {
+            flags |= CASTLING;
+            int rookFromCol = (to.getCol() > from.getCol()) ? BOARD_SIZE - 1 : 0;
+            int rookToCol = (to.getCol() > from.getCol()) ? to.getCol() - 1 : to.getCol() + 1;
+            Piece rook = board[from.getRow()][rookFromCol];
+            if (rook.hasMoved()) {
+                flags |= ROOK_HAD_MOVED;
+            }
+            rook.setPosition(Position.of(from.getRow(), rookToCol));
+            board[from.getRow()][rookToCol] = rook;
+            board[from.getRow()][rookFromCol] = null;
+        }
+        
+        movedPieces[moveCount] = piece;
+        capturedPieces[moveCount] = captured;
+        moveFlags[moveCount] = flags
+                | from.getSquare() << 8
+                | to.getSquare() << 14;
+        moveCount++;
+        return true;
+    }
+    
+    /**
+     * Take back the last move made with {@link #makeMove(Position, Position, int)},
+     * restoring the captured piece, castling rights, en passant square and moved flags
+     * @return true if a move was taken back, false if there was none
+     */
+    public boolean unmakeMove() {
+        if (moveCount == 0) {
+            return false;
+        }
+        
+        moveCount--;
+        Piece piece = movedPieces[moveCount];
+        Piece captured = capturedPieces[moveCount];
+        int flags = moveFlags[moveCount];
+        movedPieces[moveCount] = null;
+        capturedPieces[moveCount] = null;
+        
+        bitboards.unmakeMove();
+        
+        int from = (flags >>> 8) & 63;
+        int to = (flags >>> 14) & 63;
+        int fromRow = Bitboards.rowOf(from);
+        int fromCol = Bitboards.colOf(from);
+        int toCol = Bitboards.colOf(to);
+        
+        board[Bitboards.rowOf(to)][toCol] = null;
+        piece.restorePosition(Position.of(fromRow, fromCol), (flags & HAD_MOVED) != 0);
+        board[fromRow][fromCol] = piece;
+        
+        if (captured != null) {
+            Position capturedPos = captured.getPosition();
+            board[capturedPos.getRow()][capturedPos.getCol()] = captured;
+        }
+        
+        if ((flags & CASTLING) != 0) {
+            int rookFromCol = (toCol > fromCol) ? BOARD_SIZE - 1 : 0;
+            int rookToCol = (toCol > fromCol) ? toCol - 1 : toCol + 1;
+            Piece rook = board[fromRow][rookToCol];
+            rook.restorePosition(Position.of(fromRow, rookFromCol), (flags & ROOK_HAD_MOVED) != 0);
+            board[fromRow][rookFromCol] = rook;
+            board[fromRow][rookToCol] = null;
+        }
         
         return true;
     }
     
+    /**
+     * Grow the per-move undo arrays when the game gets long
+     */
+    private void ensureUndoCapacity() {
+        if (moveCount == moveFlags.length) {
+            int capacity = moveCount * 2;
+            movedPieces = Arrays.copyOf(movedPieces, capacity);
+            capturedPieces = Arrays.copyOf(capturedPieces, capacity);
+            moveFlags = Arrays.copyOf(moveFlags, capacity);
+        }
+    }
+    
+    /**
+     * Create a piece object for a bitboard piece type
+     * @param color The color of the piece
+     * @param type One of the BitboardPosition piece type constants
+     * @param position Where the piece stands
+     * @return The new piece
+     */
+    private static Piece createPiece(Piece.Color color, int type, Position position) {
+        switch (type) {
+            case BitboardPosition.PAWN: return new Pawn(color, position);
+            case BitboardPosition.KNIGHT: return new Knight(color, position);
+            case BitboardPosition.BISHOP: return new Bishop(color, position);
+            case BitboardPosition.ROOK: return new Rook(color, position);
+            case BitboardPosition.KING: return new King(color, position);
+            default: return new Queen(color, position);
+        }
+    }
+    
+    /**
+     * Get the color whose turn it is on this board
+     * @return The side to move
+     */
+    public Piece.Color getSideToMove() {
+        return bitboards.getSideToMove() == BitboardPosition.WHITE ? Piece.Color.WHITE : Piece.Color.BLACK;
+    }
+    
     /**
      * Get a copy of the board array
      * @return 2D array representing the current board state
@@ -130,21 +351,41 @@ public class ChessBoard {
         return copy;
     }
     
+    /**
+     * Describe the board, side to move, castling rights, en passant square and clocks
+     * @return The position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        return Fen.write(bitboards);
+    }
+    
+    /**
+     * Get the bitboard mirror of this board
+     * @return The bitboard position kept in sync with the piece grid
+     */
+    public BitboardPosition getBitboards() {
+        return bitboards;
+    }
+    
+    /**
+     * Get the Zobrist key of the current position
+     * @return 64-bit key, maintained incrementally as pieces move
+     */
+    public long getHash() {
+        return bitboards.getHash();
+    }
+    
     /**
      * Find the king of a specific color
      * @param color The color of the king to find
      * @return The position of the king, or null if not found
      */
     public Position findKing(Piece.Color color) {
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                Piece piece = board[row][col];
-                if (piece instanceof King && piece.getColor() == color) {
-                    return piece.getPosition();
-                }
-            }
+        int square = bitboards.getKingSquare(color.ordinal());
+        if (square < 0) {
+            return null;
         }
-        return null;
+        return board[Bitboards.rowOf(square)][Bitboards.colOf(square)].getPosition();
     }
     
     /**
@@ -0,0 +1,259 @@
+package com.chessgame.board;
+
+/**
+ * Forsyth-Edwards Notation support for bitboard positions.
+ * The parser scans the string once without splitting it, and the writer
+ * builds the result in a single presized StringBuilder.
+ */
+public final class Fen {
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECE_LETTERS = "pnbrqk";
+
+    // Longest possible FEN is well under this
+    private static final int MAX_LENGTH = 96;
+
+    private Fen() {
+    }
+
+    /**
+     * Set up a position from a FEN string. The clock fields are optional and
+     * default to 0 and 1. The string is fully validated: eight ranks of eight
+     * squares, one king per side, no pawns on the first or last rank, castling
+     * rights that match the king and rook squares, a plausible en passant square
+     * and the side not to move not in check.
+     * @param fen The FEN string
+     * @param position The position to overwrite; its contents are unspecified if the FEN is invalid
+     * @throws IllegalArgumentException if the FEN is malformed or describes an illegal position
+     */
+    public static void load(String fen, BitboardPosition position) {
+        position.clear();
+        int length = fen.length();
+        int i = skipSpaces(fen, 0);
+
+        // Piece placement
+        int row = 0;
+        int col = 0;
+        for (; i < length && !Character.isWhitespace(fen.charAt(i)); i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 8 || row == 7) {
+                    throw invalid(fen, "rank " + (8 - row) + " does not have 8 squares");
+                }
+                row++;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+                if (col > 8) {
+                    throw invalid(fen, "rank " + (8 - row) + " has more than 8 squares");
+                }
+            } else {
+                int type = PIECE_LETTERS.indexOf(Character.toLowerCase(c));
+                if (type < 0) {
+                    throw invalid(fen, "unknown piece '" + c + "'");
+                }
+                if (col > 7) {
+                    throw invalid(fen, "rank " + (8 - row) + " has more than 8 squares");
+                }
+                if (type == BitboardPosition.PAWN && (row == 0 || row == 7)) {
+                    throw invalid(fen, "pawn on rank " + (8 - row));
+                }
+                int color = Character.isUpperCase(c) ? BitboardPosition.WHITE : BitboardPosition.BLACK;
+                position.addPiece(color, type, Bitboards.square(row, col));
+                col++;
+            }
+        }
+        if (row != 7 || col != 8) {
+            throw invalid(fen, "piece placement does not cover 8 ranks");
+        }
+        if (Long.bitCount(position.getPieces(BitboardPosition.WHITE, BitboardPosition.KING)) != 1
+                || Long.bitCount(position.getPieces(BitboardPosition.BLACK, BitboardPosition.KING)) != 1) {
+            throw invalid(fen, "each side needs exactly one king");
+        }
+
+        // Side to move
+        i = skipSpaces(fen, i);
+        if (i >= length || i + 1 < length && !Character.isWhitespace(fen.charAt(i + 1))) {
+            throw invalid(fen, "missing side to move");
+        }
+        char side = fen.charAt(i++);
+        if (side != 'w' && side != 'b') {
+            throw invalid(fen, "side to move must be 'w' or 'b'");
+        }
+        position.setSideToMove(side == 'w' ? BitboardPosition.WHITE : BitboardPosition.BLACK);
+
+        // Castling rights
+        i = skipSpaces(fen, i);
+        int rights = 0;
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        } else {
+            for (; i < length && !Character.isWhitespace(fen.charAt(i)); i++) {
+                int right;
+                switch (fen.charAt(i)) {
+                    case 'K': right = BitboardPosition.WHITE_KINGSIDE; break;
+                    case 'Q': right = BitboardPosition.WHITE_QUEENSIDE; break;
+                    case 'k': right = BitboardPosition.BLACK_KINGSIDE; break;
+                    case 'q': right = BitboardPosition.BLACK_QUEENSIDE; break;
+                    default: throw invalid(fen, "unknown castling right '" + fen.charAt(i) + "'");
+                }
+                if ((rights & right) != 0) {
+                    throw invalid(fen, "repeated castling right '" + fen.charAt(i) + "'");
+                }
+                rights |= right;
+            }
+            if (rights == 0) {
+                throw invalid(fen, "missing castling rights");
+            }
+        }
+        checkCastlingRights(fen, position, rights);
+        position.setCastlingRights(rights);
+
+        // En passant square
+        i = skipSpaces(fen, i);
+        if (i >= length) {
+            throw invalid(fen, "missing en passant square");
+        }
+        if (fen.charAt(i) == '-') {
+            i++;
+        } else {
+            if (i + 1 >= length) {
+                throw invalid(fen, "bad en passant square");
+            }
+            int epCol = fen.charAt(i) - 'a';
+            int epRow = 8 - (fen.charAt(i + 1) - '0');
+            int expectedRow = position.getSideToMove() == BitboardPosition.WHITE ? 2 : 5;
+            if (epCol < 0 || epCol > 7 || epRow != expectedRow) {
+                throw invalid(fen, "bad en passant square " + fen.substring(i, i + 2));
+            }
+            int pawnSquare = Bitboards.square(epRow + (expectedRow == 2 ? 1 : -1), epCol);
+            int mover = position.getSideToMove() ^ 1;
+            if (position.getPieceAt(pawnSquare) != BitboardPosition.pieceCode(mover, BitboardPosition.PAWN)) {
+                throw invalid(fen, "no pawn for en passant square " + fen.substring(i, i + 2));
+            }
+            position.setEnPassantSquare(Bitboards.square(epRow, epCol));
+            i += 2;
+        }
+
+        // Optional clocks
+        i = skipSpaces(fen, i);
+        if (i < length) {
+            int halfmove = 0;
+            for (; i < length && !Character.isWhitespace(fen.charAt(i)); i++) {
+                halfmove = appendDigit(fen, halfmove, fen.charAt(i));
+            }
+            i = skipSpaces(fen, i);
+            if (i >= length) {
+                throw invalid(fen, "halfmove clock without fullmove number");
+            }
+            int fullmove = 0;
+            for (; i < length && !Character.isWhitespace(fen.charAt(i)); i++) {
+                fullmove = appendDigit(fen, fullmove, fen.charAt(i));
+            }
+            if (fullmove < 1) {
+                throw invalid(fen, "fullmove number must be at least 1");
+            }
+            if (skipSpaces(fen, i) < length) {
+                throw invalid(fen, "unexpected text after the clocks");
+            }
+            position.setHalfmoveClock(halfmove);
+            position.setFullmoveNumber(fullmove);
+        }
+
+        int waiting = position.getSideToMove() ^ 1;
+        if (position.isSquareAttacked(position.getKingSquare(waiting), position.getSideToMove())) {
+            throw invalid(fen, "the side not to move is in check");
+        }
+    }
+
+    /**
+     * Write a position as FEN, including the clocks
+     * @param position The position
+     * @return The FEN string
+     */
+    public static String write(BitboardPosition position) {
+        StringBuilder sb = new StringBuilder(MAX_LENGTH);
+        for (int row = 0; row < 8; row++) {
+            if (row > 0) {
+                sb.append('/');
+            }
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int code = position.getPieceAt(Bitboards.square(row, col));
+                if (code == BitboardPosition.NO_PIECE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char letter = PIECE_LETTERS.charAt(BitboardPosition.typeOf(code));
+                sb.append(BitboardPosition.colorOf(code) == BitboardPosition.WHITE
+                        ? Character.toUpperCase(letter) : letter);
+            }
+            if (empty > 0) {
+                sb.append((char) ('0' + empty));
+            }
+        }
+
+        sb.append(position.getSideToMove() == BitboardPosition.WHITE ? " w " : " b ");
+
+        int rights = position.getCastlingRights();
+        if (rights == 0) {
+            sb.append('-');
+        } else {
+            if ((rights & BitboardPosition.WHITE_KINGSIDE) != 0) sb.append('K');
+            if ((rights & BitboardPosition.WHITE_QUEENSIDE) != 0) sb.append('Q');
+            if ((rights & BitboardPosition.BLACK_KINGSIDE) != 0) sb.append('k');
+            if ((rights & BitboardPosition.BLACK_QUEENSIDE) != 0) sb.append('q');
+        }
+
+        sb.append(' ');
+        int ep = position.getEnPassantSquare();
+        if (ep < 0) {
+            sb.append('-');
+        } else {
+            sb.append((char) ('a' + Bitboards.colOf(ep))).append((char) ('8' - Bitboards.rowOf(ep)));
+        }
+
+        sb.append(' ').append(position.getHalfmoveClock())
+                .append(' ').append(position.getFullmoveNumber());
+        return sb.toString();
+    }
+
+    private static void checkCastlingRights(String fen, BitboardPosition position, int rights) {
+        int whiteKing = BitboardPosition.pieceCode(BitboardPosition.WHITE, BitboardPosition.KING);
+        int whiteRook = BitboardPosition.pieceCode(BitboardPosition.WHITE, BitboardPosition.ROOK);
+        int blackKing = BitboardPosition.pieceCode(BitboardPosition.BLACK, BitboardPosition.KING);
+        int blackRook = BitboardPosition.pieceCode(BitboardPosition.BLACK, BitboardPosition.ROOK);
+        if (((rights & BitboardPosition.WHITE_KINGSIDE) != 0
+                    && (position.getPieceAt(60) != whiteKing || position.getPieceAt(63) != whiteRook))
+                || ((rights & BitboardPosition.WHITE_QUEENSIDE) != 0
+                    && (position.getPieceAt(60) != whiteKing || position.getPieceAt(56) != whiteRook))
+                || ((rights & BitboardPosition.BLACK_KINGSIDE) != 0
+                    && (position.getPieceAt(4) != blackKing || position.getPieceAt(7) != blackRook))
+                || ((rights & BitboardPosition.BLACK_QUEENSIDE) != 0
+                    && (position.getPieceAt(4) != blackKing || position.getPieceAt(0) != blackRook))) {
+            throw invalid(fen, "castling rights without king and rook on their home squares");
+        }
+    }
+
+    private static int appendDigit(String fen, int value, char c) {
+        if (c < '0' || c > '9' || value > 100000) {
+            throw invalid(fen, "bad move clock");
+        }
+        return value * 10 + (c - '0');
+    }
+
+    private static int skipSpaces(String fen, int i) {
+        while (i < fen.length() && Character.isWhitespace(fen.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static IllegalArgumentException invalid(String fen, String reason) {
+        return new IllegalArgumentException("Invalid FEN (" + reason + "): " + fen);
+    }
+}
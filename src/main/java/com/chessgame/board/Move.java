@@ -0,0 +1,142 @@
+package com.chessgame.board;
+
+/**
+ * Static helpers for moves packed into an int:
+ * from square (bits 0-5), to square (6-11), promotion piece type (12-14, 0 = none)
+ * and flags (16-19). The low 16 bits identify the move on their own, which is what
+ * the transposition table stores; the flags are hints filled in by the generator.
+ * 0 is never a real move.
+ */
+public final class Move {
+    public static final int NONE = 0;
+
+    // Flags set by MoveGenerator
+    public static final int FLAG_CAPTURE = 1 << 16;
+    public static final int FLAG_EN_PASSANT = 1 << 17;
+    public static final int FLAG_CASTLING = 1 << 18;
+    public static final int FLAG_DOUBLE_PUSH = 1 << 19;
+
+    private static final int KEY_MASK = 0xFFFF;
+
+    private static final String PROMOTION_LETTERS = " nbrq";
+
+    private Move() {
+    }
+
+    /**
+     * Pack a move
+     * @param from Starting square 0-63
+     * @param to Destination square 0-63
+     * @param promotion Promotion piece type (KNIGHT to QUEEN), or 0 for none
+     * @return The packed move
+     */
+    public static int encode(int from, int to, int promotion) {
+        return from | (to << 6) | (promotion << 12);
+    }
+
+    /**
+     * Pack a move with flags
+     * @param from Starting square 0-63
+     * @param to Destination square 0-63
+     * @param promotion Promotion piece type (KNIGHT to QUEEN), or 0 for none
+     * @param flags Combination of the FLAG_ constants
+     * @return The packed move
+     */
+    public static int encode(int from, int to, int promotion, int flags) {
+        return from | (to << 6) | (promotion << 12) | flags;
+    }
+
+    /**
+     * Strip the flags from a move
+     * @param move The packed move
+     * @return The from, to and promotion part, as stored in the transposition table
+     */
+    public static int key(int move) {
+        return move & KEY_MASK;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int promotion(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & FLAG_CAPTURE) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & FLAG_EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastling(int move) {
+        return (move & FLAG_CASTLING) != 0;
+    }
+
+    /**
+     * Get the starting square of a move as a Position
+     * @param move The packed move
+     * @return Position of the from square
+     */
+    public static Position fromPosition(int move) {
+        return Position.of(from(move));
+    }
+
+    /**
+     * Get the destination square of a move as a Position
+     * @param move The packed move
+     * @return Position of the to square
+     */
+    public static Position toPosition(int move) {
+        return Position.of(to(move));
+    }
+
+    /**
+     * Read coordinate notation (e.g., "e2e4", "e7e8q"). Legality is not checked.
+     * @param text The move text
+     * @return The packed move, without flags
+     * @throws IllegalArgumentException if the text is not coordinate notation
+     */
+    public static int parse(CharSequence text) {
+        int length = text.length();
+        if (length != 4 && length != 5) {
+            throw new IllegalArgumentException("Invalid move: " + text);
+        }
+        int from = squareOf(text, 0);
+        int to = squareOf(text, 2);
+        int promotion = length == 5 ? PROMOTION_LETTERS.indexOf(Character.toLowerCase(text.charAt(4))) : 0;
+        if (from < 0 || to < 0 || promotion < 0 || (length == 5 && promotion == 0)) {
+            throw new IllegalArgumentException("Invalid move: " + text);
+        }
+        return encode(from, to, promotion);
+    }
+
+    private static int squareOf(CharSequence text, int index) {
+        char file = text.charAt(index);
+        char rank = text.charAt(index + 1);
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            return -1;
+        }
+        return Bitboards.square('8' - rank, file - 'a');
+    }
+
+    /**
+     * Get coordinate notation for a move (e.g., "e2e4", "e7e8q")
+     * @param move The packed move
+     * @return String representation of the move
+     */
+    public static String toString(int move) {
+        if (move == NONE) {
+            return "0000";
+        }
+        String text = fromPosition(move).toChessNotation() + toPosition(move).toChessNotation();
+        int promotion = promotion(move);
+        return promotion == 0 ? text : text + PROMOTION_LETTERS.charAt(promotion);
+    }
+}
@@ -0,0 +1,199 @@
+package com.chessgame.board;
+
+/**
+ * Writes packed moves for a BitboardPosition into a caller-owned MoveList.
+ * Nothing is allocated, so the search and game-end checks can generate moves
+ * at every node without producing garbage.
+ * The legal generator masks each piece's targets with the position's pins,
+ * check evasion squares and king danger squares instead of trying each move.
+ */
+public final class MoveGenerator {
+    private MoveGenerator() {
+    }
+
+    /**
+     * Generate all pseudo-legal moves for the side to move; some may leave the king in check
+     * @param position The position
+     * @param list Cleared and filled with the moves
+     */
+    public static void generate(BitboardPosition position, MoveList list) {
+        list.clear();
+        int side = position.getSideToMove();
+        long own = position.getOccupancy(side);
+        while (own != 0) {
+            int from = Bitboards.lowestSquare(own);
+            own &= own - 1;
+            addMoves(position, list, from, position.getTargets(from), false);
+        }
+    }
+
+    /**
+     * Generate pseudo-legal captures and queen promotions for the side to move
+     * @param position The position
+     * @param list Cleared and filled with the moves
+     */
+    public static void generateCaptures(BitboardPosition position, MoveList list) {
+        list.clear();
+        int side = position.getSideToMove();
+        long enemies = position.getOccupancy(side ^ 1);
+        long pawnTargets = Bitboards.ROW_0 | Bitboards.ROW_7;
+        if (position.getEnPassantSquare() >= 0) {
+            pawnTargets |= Bitboards.bit(position.getEnPassantSquare());
+        }
+        long own = position.getOccupancy(side);
+        while (own != 0) {
+            int from = Bitboards.lowestSquare(own);
+            own &= own - 1;
+            long wanted = enemies;
+            if (BitboardPosition.typeOf(position.getPieceAt(from)) == BitboardPosition.PAWN) {
+                wanted |= pawnTargets;
+            }
+            addMoves(position, list, from, position.getTargets(from) & wanted, true);
+        }
+    }
+
+    /**
+     * Generate the legal moves for the side to move in a single pass
+     * @param position The position
+     * @param list Cleared and filled with the moves
+     */
+    public static void generateLegal(BitboardPosition position, MoveList list) {
+        list.clear();
+        int side = position.getSideToMove();
+        long own = position.getOccupancy(side);
+        if (isDoubleCheck(position)) {
+            own = position.getPieces(side, BitboardPosition.KING);
+        }
+        while (own != 0) {
+            int from = Bitboards.lowestSquare(own);
+            own &= own - 1;
+            addMoves(position, list, from, getLegalTargets(position, from), false);
+        }
+    }
+
+    /**
+     * Generate the legal moves of one piece of the side to move
+     * @param position The position
+     * @param from Square of the piece
+     * @param list Cleared and filled with the moves
+     */
+    public static void generateLegal(BitboardPosition position, int from, MoveList list) {
+        list.clear();
+        addMoves(position, list, from, getLegalTargets(position, from), false);
+    }
+
+    /**
+     * Check whether the side to move has at least one legal move, stopping at the first one
+     * @param position The position
+     * @return true if a legal move exists
+     */
+    public static boolean hasLegalMove(BitboardPosition position) {
+        int side = position.getSideToMove();
+        int king = position.getKingSquare(side);
+        boolean inCheck = position.getCheckers() != 0;
+        // In check the king is the piece most likely to move; otherwise it is tried last,
+        // since its danger squares are the most expensive mask to compute
+        if (inCheck && king >= 0 && getLegalTargets(position, king) != 0) {
+            return true;
+        }
+        if (isDoubleCheck(position)) {
+            return false;
+        }
+        long own = position.getOccupancy(side);
+        if (king >= 0) {
+            own ^= Bitboards.bit(king);
+        }
+        while (own != 0) {
+            int from = Bitboards.lowestSquare(own);
+            own &= own - 1;
+            if (getLegalTargets(position, from) != 0) {
+                return true;
+            }
+        }
+        return !inCheck && king >= 0 && getLegalTargets(position, king) != 0;
+    }
+
+    /**
+     * Get the legal destination squares of a piece of the side to move
+     * @param position The position
+     * @param from Square of the piece
+     * @return Bitboard of legal destinations, empty for an empty square or an opponent's piece
+     */
+    public static long getLegalTargets(BitboardPosition position, int from) {
+        int code = position.getPieceAt(from);
+        int side = position.getSideToMove();
+        if (code == BitboardPosition.NO_PIECE || BitboardPosition.colorOf(code) != side) {
+            return 0L;
+        }
+        long targets = position.getTargets(from);
+        int king = position.getKingSquare(side);
+        if (king < 0) {
+            return targets;
+        }
+        if (from == king) {
+            return targets & ~position.getKingDangerSquares();
+        }
+
+        // En passant can uncover a check along the rank, so it is tested on its own
+        long enPassant = 0L;
+        if (BitboardPosition.typeOf(code) == BitboardPosition.PAWN && position.getEnPassantSquare() >= 0) {
+            enPassant = targets & Bitboards.bit(position.getEnPassantSquare());
+            targets &= ~enPassant;
+        }
+
+        long checkers = position.getCheckers();
+        if (checkers != 0) {
+            if ((checkers & (checkers - 1)) != 0) {
+                return 0L;
+            }
+            targets &= checkers | Bitboards.BETWEEN[king][Bitboards.lowestSquare(checkers)];
+        }
+        if ((position.getPinned() & Bitboards.bit(from)) != 0) {
+            targets &= Bitboards.LINE[king][from];
+        }
+        if (enPassant != 0 && !position.leavesKingInCheck(from, position.getEnPassantSquare())) {
+            targets |= enPassant;
+        }
+        return targets;
+    }
+
+    private static boolean isDoubleCheck(BitboardPosition position) {
+        long checkers = position.getCheckers();
+        return (checkers & (checkers - 1)) != 0;
+    }
+
+    /**
+     * Add the moves of one piece to a list, expanding promotions and setting flags
+     */
+    private static void addMoves(BitboardPosition position, MoveList list, int from, long targets,
+                                 boolean queenPromotionsOnly) {
+        int type = BitboardPosition.typeOf(position.getPieceAt(from));
+        long enemies = position.getOccupancy(position.getSideToMove() ^ 1);
+        int enPassant = position.getEnPassantSquare();
+        while (targets != 0) {
+            int to = Bitboards.lowestSquare(targets);
+            targets &= targets - 1;
+            int flags = (enemies & Bitboards.bit(to)) != 0 ? Move.FLAG_CAPTURE : 0;
+            if (type == BitboardPosition.PAWN) {
+                if (to == enPassant) {
+                    flags = Move.FLAG_CAPTURE | Move.FLAG_EN_PASSANT;
+                } else if (Math.abs(to - from) == 16) {
+                    flags = Move.FLAG_DOUBLE_PUSH;
+                }
+                int row = Bitboards.rowOf(to);
+                if (row == 0 || row == 7) {
+                    list.add(Move.encode(from, to, BitboardPosition.QUEEN, flags));
+                    if (!queenPromotionsOnly) {
+                        list.add(Move.encode(from, to, BitboardPosition.KNIGHT, flags));
+                        list.add(Move.encode(from, to, BitboardPosition.ROOK, flags));
+                        list.add(Move.encode(from, to, BitboardPosition.BISHOP, flags));
+                    }
+                    continue;
+                }
+            } else if (type == BitboardPosition.KING && Math.abs(to - from) == 2) {
+                flags = Move.FLAG_CASTLING;
+            }
+            list.add(Move.encode(from, to, 0, flags));
+        }
+    }
+}
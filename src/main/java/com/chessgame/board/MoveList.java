@@ -0,0 +1,93 @@
+package com.chessgame.board;
+
+/**
+ * Reusable buffer of packed moves. A list is allocated once, e.g. one per search
+ * ply, and cleared before each use, so generating moves creates no garbage.
+ */
+public final class MoveList {
+    // No legal chess position has more than 218 moves
+    public static final int CAPACITY = 256;
+
+    private final int[] moves = new int[CAPACITY];
+    private final int[] scores = new int[CAPACITY];
+    private int size;
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Get the ordering score attached to a move
+     * @param index Index of the move
+     * @return The score set with {@link #setScore(int, int)}
+     */
+    public int getScore(int index) {
+        return scores[index];
+    }
+
+    public void setScore(int index, int score) {
+        scores[index] = score;
+    }
+
+    /**
+     * Check whether the list holds a move, ignoring flags
+     * @param move The packed move
+     * @return true if a move with the same from, to and promotion is in the list
+     */
+    public boolean contains(int move) {
+        int key = Move.key(move);
+        for (int i = 0; i < size; i++) {
+            if (Move.key(moves[i]) == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Selection sort step: swap the highest scored move from index on into index
+     * @param index First unsorted index
+     * @return The move now at index
+     */
+    public int pickBest(int index) {
+        int best = index;
+        for (int j = index + 1; j < size; j++) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        int move = moves[best];
+        moves[best] = moves[index];
+        moves[index] = move;
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+        return move;
+    }
+
+    /**
+     * Remove the move at an index by moving the last move into its place
+     * @param index Index of the move to remove
+     */
+    public void removeAt(int index) {
+        size--;
+        moves[index] = moves[size];
+        scores[index] = scores[size];
+    }
+}
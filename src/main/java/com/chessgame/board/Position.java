@@ -1,9 +1,19 @@
 package com.chessgame.board;
 
 /**
- * Represents a position on the chess board
+ * Represents a position on the chess board.
+ * The 64 on-board positions are interned: {@link #of(int, int)} and {@link #of(int)}
+ * always return the same instance for a square, so they never allocate.
  */
 public class Position {
+    private static final Position[] SQUARES = new Position[64];
+    
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new Position(square / 8, square % 8);
+        }
+    }
+    
     private final int row;
     private final int col;
     
@@ -12,6 +22,31 @@ public class Position {
         this.col = col;
     }
     
+    /**
+     * Get the position for a row and column
+     * @param row Row 0-7 (0 is rank 8)
+     * @param col Column 0-7 (0 is file a)
+     * @return The shared instance, or a new off-board position if out of range
+     */
+    public static Position of(int row, int col) {
+        if (row >= 0 && row < 8 && col >= 0 && col < 8) {
+            return SQUARES[row * 8 + col];
+        }
+        return new Position(row, col);
+    }
+    
+    /**
+     * Get the position for a square index
+     * @param square Square index 0-63 (0 is a8, 63 is h1)
+     * @return The shared instance
+     */
+    public static Position of(int square) {
+        if (square < 0 || square >= 64) {
+            throw new IllegalArgumentException("Invalid square index: " + square);
+        }
+        return SQUARES[square];
+    }
+    
     public int getRow() {
         return row;
     }
@@ -20,6 +55,14 @@ public class Position {
         return col;
     }
     
+    /**
+     * Get the square index used by the bitboards
+     * @return row * 8 + col, 0 (a8) to 63 (h1) for on-board positions
+     */
+    public int getSquare() {
+        return row * 8 + col;
+    }
+    
     /**
      * Check if this position is within the board boundaries
      * @return true if position is valid (0-7 for both row and col)
@@ -57,12 +100,12 @@ public class Position {
         int col = file - 'a';
         int row = 8 - (rank - '0');
         
-        return new Position(row, col);
+        return of(row, col);
     }
     
     @Override
     public boolean equals(Object obj) {
-        if (this == obj) return true;
+        if (this == obj) return true; // Fast path: interned positions compare by reference
         if (obj == null || getClass() != obj.getClass()) return false;
         Position position = (Position) obj;
         return row == position.row && col == position.col;
@@ -70,7 +113,7 @@ public class Position {
     
     @Override
     public int hashCode() {
-        return row * 8 + col;
+        return getSquare();
     }
     
     @Override
@@ -0,0 +1,230 @@
+package com.chessgame.board;
+
+/**
+ * Standard Algebraic Notation (e.g. "Nbd7", "exd5", "e8=Q+", "O-O") for bitboard positions.
+ * Parsing matches the text against the legal moves of the named piece type, so a
+ * move that parses is always legal. Nothing is allocated when a caller-owned MoveList is reused.
+ */
+public final class San {
+    private static final String PIECE_LETTERS = "PNBRQK";
+
+    private San() {
+    }
+
+    /**
+     * Find the legal move a SAN string describes
+     * @param position The position the move is played in
+     * @param san The move text; check, mate and annotation suffixes are ignored
+     * @param scratch List used for the legal moves; its contents are overwritten
+     * @return The packed move
+     * @throws IllegalArgumentException if the text is malformed, illegal or ambiguous
+     */
+    public static int parse(BitboardPosition position, CharSequence san, MoveList scratch) {
+        int end = san.length();
+        while (end > 0 && isSuffix(san.charAt(end - 1))) {
+            end--;
+        }
+        if (end < 2) {
+            throw invalid(san, "too short");
+        }
+
+        char first = san.charAt(0);
+        if (first == 'O' || first == '0') {
+            return parseCastling(position, san, end, scratch);
+        }
+
+        int type = BitboardPosition.PAWN;
+        int start = 0;
+        if (first >= 'A' && first <= 'Z') {
+            type = PIECE_LETTERS.indexOf(first);
+            if (type < 0) {
+                throw invalid(san, "unknown piece");
+            }
+            start = 1;
+        }
+
+        // Promotion piece, written "e8=Q" or "e8Q"
+        int promotion = 0;
+        char last = san.charAt(end - 1);
+        if (last >= 'B' && last <= 'R') {
+            promotion = PIECE_LETTERS.indexOf(last);
+            if (promotion < BitboardPosition.KNIGHT || promotion > BitboardPosition.QUEEN) {
+                throw invalid(san, "bad promotion piece");
+            }
+            end--;
+            if (end > 0 && san.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+
+        if (end - start < 2) {
+            throw invalid(san, "missing destination square");
+        }
+        int to = squareOf(san, end - 2);
+        if (to < 0) {
+            throw invalid(san, "bad destination square");
+        }
+
+        // Whatever is left between the piece and the destination: disambiguation and 'x'
+        int fromCol = -1;
+        int fromRow = -1;
+        for (int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromCol = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRow = '8' - c;
+            } else if (c != 'x' && c != ':' && c != '-') {
+                throw invalid(san, "unexpected '" + c + "'");
+            }
+        }
+
+        // Only pieces of the named type that can reach the destination are considered
+        int found = Move.NONE;
+        long candidates = position.getPieces(position.getSideToMove(), type);
+        while (candidates != 0) {
+            int from = Bitboards.lowestSquare(candidates);
+            candidates &= candidates - 1;
+            if ((fromCol >= 0 && Bitboards.colOf(from) != fromCol)
+                    || (fromRow >= 0 && Bitboards.rowOf(from) != fromRow)
+                    || (MoveGenerator.getLegalTargets(position, from) & Bitboards.bit(to)) == 0) {
+                continue;
+            }
+            MoveGenerator.generateLegal(position, from, scratch);
+            for (int i = 0; i < scratch.size(); i++) {
+                int move = scratch.get(i);
+                if (Move.to(move) != to || Move.promotion(move) != promotion) {
+                    continue;
+                }
+                if (found != Move.NONE) {
+                    throw invalid(san, "ambiguous");
+                }
+                found = move;
+            }
+        }
+        if (found == Move.NONE) {
+            throw invalid(san, "no such legal move");
+        }
+        return found;
+    }
+
+    private static int parseCastling(BitboardPosition position, CharSequence san, int end, MoveList legal) {
+        int letters = 0;
+        for (int i = 0; i < end; i++) {
+            char c = san.charAt(i);
+            if (c == 'O' || c == '0') {
+                letters++;
+            } else if (c != '-') {
+                throw invalid(san, "bad castling");
+            }
+        }
+        if (letters != 2 && letters != 3) {
+            throw invalid(san, "bad castling");
+        }
+        int king = position.getKingSquare(position.getSideToMove());
+        if (king < 0) {
+            throw invalid(san, "no king");
+        }
+        int to = letters == 2 ? king + 2 : king - 2;
+        MoveGenerator.generateLegal(position, king, legal);
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            if (Move.isCastling(move) && Move.to(move) == to) {
+                return move;
+            }
+        }
+        throw invalid(san, "castling is not legal");
+    }
+
+    /**
+     * Write a legal move in SAN, including the check or mate suffix
+     * @param position The position the move is played in; it is restored afterwards
+     * @param move The packed move
+     * @param scratch List used for the legal moves; its contents are overwritten
+     * @return The SAN text
+     */
+    public static String toSan(BitboardPosition position, int move, MoveList scratch) {
+        StringBuilder sb = new StringBuilder(8);
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int type = BitboardPosition.typeOf(position.getPieceAt(from));
+        boolean capture = position.getPieceAt(to) != BitboardPosition.NO_PIECE
+                || (type == BitboardPosition.PAWN && to == position.getEnPassantSquare());
+
+        if (type == BitboardPosition.KING && Math.abs(to - from) == 2) {
+            sb.append(to > from ? "O-O" : "O-O-O");
+        } else if (type == BitboardPosition.PAWN) {
+            if (capture) {
+                sb.append((char) ('a' + Bitboards.colOf(from))).append('x');
+            }
+            appendSquare(sb, to);
+            int promotion = Move.promotion(move);
+            if (Bitboards.rowOf(to) == 0 || Bitboards.rowOf(to) == 7) {
+                sb.append('=').append(PIECE_LETTERS.charAt(promotion == 0 ? BitboardPosition.QUEEN : promotion));
+            }
+        } else {
+            sb.append(PIECE_LETTERS.charAt(type));
+            appendDisambiguation(sb, position, from, to, type, scratch);
+            if (capture) {
+                sb.append('x');
+            }
+            appendSquare(sb, to);
+        }
+
+        position.makeMove(move);
+        if (position.isInCheck(position.getSideToMove())) {
+            sb.append(MoveGenerator.hasLegalMove(position) ? '+' : '#');
+        }
+        position.unmakeMove();
+        return sb.toString();
+    }
+
+    private static void appendDisambiguation(StringBuilder sb, BitboardPosition position, int from, int to,
+                                             int type, MoveList scratch) {
+        MoveGenerator.generateLegal(position, scratch);
+        boolean ambiguous = false;
+        boolean sameCol = false;
+        boolean sameRow = false;
+        for (int i = 0; i < scratch.size(); i++) {
+            int other = Move.from(scratch.get(i));
+            if (other == from || Move.to(scratch.get(i)) != to
+                    || BitboardPosition.typeOf(position.getPieceAt(other)) != type) {
+                continue;
+            }
+            ambiguous = true;
+            sameCol |= Bitboards.colOf(other) == Bitboards.colOf(from);
+            sameRow |= Bitboards.rowOf(other) == Bitboards.rowOf(from);
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameCol) {
+            sb.append((char) ('a' + Bitboards.colOf(from)));
+        } else if (!sameRow) {
+            sb.append((char) ('8' - Bitboards.rowOf(from)));
+        } else {
+            appendSquare(sb, from);
+        }
+    }
+
+    private static void appendSquare(StringBuilder sb, int square) {
+        sb.append((char) ('a' + Bitboards.colOf(square))).append((char) ('8' - Bitboards.rowOf(square)));
+    }
+
+    private static int squareOf(CharSequence text, int index) {
+        char file = text.charAt(index);
+        char rank = text.charAt(index + 1);
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            return -1;
+        }
+        return Bitboards.square('8' - rank, file - 'a');
+    }
+
+    private static boolean isSuffix(char c) {
+        return c == '+' || c == '#' || c == '!' || c == '?';
+    }
+
+    private static IllegalArgumentException invalid(CharSequence san, String reason) {
+        return new IllegalArgumentException("Invalid SAN move (" + reason + "): " + san);
+    }
+}
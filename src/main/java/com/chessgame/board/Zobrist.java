@@ -0,0 +1,111 @@
+package com.chessgame.board;
+
+/**
+ * Zobrist keys for hashing positions into 64 bits.
+ * A position's key is the XOR of one key per piece on its square, plus keys for
+ * the side to move, the castling rights and the en passant file, so it can be
+ * updated incrementally as pieces move. As in Polyglot, the en passant file only
+ * counts when a pawn stands ready to capture, so a double push that cannot be
+ * answered en passant gives the same key as any other move to that position.
+ */
+public final class Zobrist {
+    private static final long[] PIECE_KEYS = new long[12 * 64];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+    /** XORed in when black is to move */
+    public static final long SIDE_KEY;
+
+    static {
+        // SplitMix64 with a fixed seed, so keys are identical across runs and machines
+        long state = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < PIECE_KEYS.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            PIECE_KEYS[i] = mix(state);
+        }
+        for (int i = 1; i < CASTLING_KEYS.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            CASTLING_KEYS[i] = mix(state);
+        }
+        for (int i = 0; i < EN_PASSANT_KEYS.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            EN_PASSANT_KEYS[i] = mix(state);
+        }
+        state += 0x9E3779B97F4A7C15L;
+        SIDE_KEY = mix(state);
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Get the key for a piece standing on a square
+     * @param pieceCode Piece code 0-11 as used by BitboardPosition
+     * @param square Square index 0-63
+     * @return The piece-square key
+     */
+    public static long pieceKey(int pieceCode, int square) {
+        return PIECE_KEYS[(pieceCode << 6) | square];
+    }
+
+    /**
+     * Get the key for a set of castling rights; no rights hash to zero
+     * @param castlingRights Castling rights bits
+     * @return The castling key
+     */
+    public static long castlingKey(int castlingRights) {
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    /**
+     * Get the key for an en passant square, which depends only on its file
+     * @param square En passant square, or -1 for none
+     * @return The en passant key, zero when there is no en passant square
+     */
+    public static long enPassantKey(int square) {
+        return square < 0 ? 0L : EN_PASSANT_KEYS[Bitboards.colOf(square)];
+    }
+
+    /**
+     * Get the en passant key a position contributes: the file key if a pawn of the
+     * side that may capture stands next to the pawn that just advanced two squares
+     * @param position The position, with the pieces already in place
+     * @param square En passant square, or -1 for none
+     * @return The en passant key, zero when no en passant capture is possible
+     */
+    public static long enPassantKey(BitboardPosition position, int square) {
+        if (square < 0) {
+            return 0L;
+        }
+        // The square behind a black pawn on the sixth rank is captured by white, and vice versa
+        int capturer = Bitboards.rowOf(square) == 2 ? BitboardPosition.WHITE : BitboardPosition.BLACK;
+        long pawns = position.getPieces(capturer, BitboardPosition.PAWN);
+        return (Bitboards.PAWN_ATTACKS[capturer ^ 1][square] & pawns) != 0 ? enPassantKey(square) : 0L;
+    }
+
+    /**
+     * Compute a position's key from scratch; equal to the key BitboardPosition keeps up to date
+     * @param position The position
+     * @return The Zobrist key
+     */
+    public static long computeKey(BitboardPosition position) {
+        long key = 0L;
+        long occupied = position.getOccupied();
+        while (occupied != 0) {
+            int square = Bitboards.lowestSquare(occupied);
+            occupied &= occupied - 1;
+            key ^= pieceKey(position.getPieceAt(square), square);
+        }
+        key ^= castlingKey(position.getCastlingRights());
+        key ^= enPassantKey(position, position.getEnPassantSquare());
+        if (position.getSideToMove() == BitboardPosition.BLACK) {
+            key ^= SIDE_KEY;
+        }
+        return key;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
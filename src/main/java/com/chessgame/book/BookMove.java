@@ -0,0 +1,47 @@
+package com.chessgame.book;
+
+import com.chessgame.board.Move;
+
+/**
+ * One move of an opening book entry, already matched to a legal move
+ */
+public class BookMove {
+    private final int move;
+    private final int weight;
+    private final int learn;
+
+    public BookMove(int move, int weight, int learn) {
+        this.move = move;
+        this.weight = weight;
+        this.learn = learn;
+    }
+
+    /**
+     * Get the move
+     * @return Packed legal move with flags (see {@link Move})
+     */
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * Get the move's selection weight; moves are picked with probability proportional to it
+     * @return Weight 0-65535
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Get the learning data stored with the entry, which this book does not interpret
+     * @return The raw 32-bit value
+     */
+    public int getLearn() {
+        return learn;
+    }
+
+    @Override
+    public String toString() {
+        return Move.toString(move) + " (" + weight + ")";
+    }
+}
@@ -0,0 +1,256 @@
+package com.chessgame.book;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Bitboards;
+import com.chessgame.board.Fen;
+import com.chessgame.board.Move;
+import com.chessgame.board.MoveGenerator;
+import com.chessgame.board.MoveList;
+import com.chessgame.board.San;
+import com.chessgame.game.ChessGame;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Opening book in Polyglot .bin format: 16-byte big-endian entries of key, move,
+ * weight and learn value, sorted by key. The file is memory-mapped and searched
+ * in place, so opening a book costs nothing however large it is, and a lookup is
+ * one key computation, a binary search and one legal move generation.
+ * Only absolute reads are made on the mapping, so one book can serve many games
+ * on different threads. Books are limited to 2 GB.
+ *
+ * Usage:
+ *   java com.chessgame.book.OpeningBook book.bin [random64.txt] [fen]
+ */
+public class OpeningBook implements Closeable {
+    static final int ENTRY_SIZE = 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private final int entries;
+    private final PolyglotKeys keys;
+
+    /**
+     * Open a book hashed with the default keys, e.g. one built by {@link OpeningBookBuilder}
+     * @param file The .bin file
+     * @throws IOException if the file cannot be read
+     */
+    public OpeningBook(Path file) throws IOException {
+        this(file, PolyglotKeys.getDefault());
+    }
+
+    /**
+     * Open a book
+     * @param file The .bin file
+     * @param keys The key table the book was built with
+     * @throws IOException if the file cannot be read or is not a whole number of entries
+     */
+    public OpeningBook(Path file, PolyglotKeys keys) throws IOException {
+        this.keys = keys;
+        channel = FileChannel.open(file);
+        try {
+            long size = channel.size();
+            if (size % ENTRY_SIZE != 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a Polyglot book of at most 2 GB: " + file);
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            entries = (int) (size / ENTRY_SIZE);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the number of entries in the book
+     * @return Entry count
+     */
+    public int size() {
+        return entries;
+    }
+
+    public PolyglotKeys getKeys() {
+        return keys;
+    }
+
+    /**
+     * Get the book moves for the current position of a game
+     * @param game The game
+     * @return Legal book moves in file order, usually heaviest first; empty when out of book
+     */
+    public List<BookMove> getMoves(ChessGame game) {
+        return getMoves(game.getBoard().getBitboards());
+    }
+
+    /**
+     * Get the book moves for a position. Entries whose move is not legal, which
+     * only happens on a key collision or a corrupt book, are skipped.
+     * @param position The position; it is not modified
+     * @return Legal book moves in file order, usually heaviest first; empty when out of book
+     */
+    public List<BookMove> getMoves(BitboardPosition position) {
+        long key = keys.getKey(position);
+        int index = lowerBound(key);
+        if (index == entries || keyAt(index) != key) {
+            return Collections.emptyList();
+        }
+        List<BookMove> moves = new ArrayList<>();
+        MoveList legal = new MoveList();
+        MoveGenerator.generateLegal(position, legal);
+        for (; index < entries && keyAt(index) == key; index++) {
+            int offset = index * ENTRY_SIZE;
+            int move = fromPolyglot(position, data.getShort(offset + 8) & 0xFFFF, legal);
+            if (move != Move.NONE) {
+                moves.add(new BookMove(move, data.getShort(offset + 10) & 0xFFFF, data.getInt(offset + 12)));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Pick a book move for a game's position at random, in proportion to the weights
+     * @param game The game
+     * @param random Source of randomness
+     * @return Packed legal move, or Move.NONE when out of book
+     */
+    public int pickMove(ChessGame game, Random random) {
+        return pickMove(game.getBoard().getBitboards(), random);
+    }
+
+    /**
+     * Pick a book move at random, in proportion to the weights
+     * @param position The position; it is not modified
+     * @param random Source of randomness
+     * @return Packed legal move, or Move.NONE when out of book
+     */
+    public int pickMove(BitboardPosition position, Random random) {
+        List<BookMove> moves = getMoves(position);
+        long total = 0;
+        for (BookMove move : moves) {
+            total += move.getWeight();
+        }
+        if (total == 0) {
+            return Move.NONE;
+        }
+        long pick = (long) (random.nextDouble() * total);
+        for (BookMove move : moves) {
+            pick -= move.getWeight();
+            if (pick < 0) {
+                return move.getMove();
+            }
+        }
+        return moves.get(moves.size() - 1).getMove();
+    }
+
+    /**
+     * Find the first entry whose key is not below the given one, comparing keys as unsigned
+     */
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = entries;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return data.getLong(index * ENTRY_SIZE);
+    }
+
+    /**
+     * Encode a move the way Polyglot does: squares counted from a1, castling as
+     * the king taking its own rook
+     * @param move A packed move
+     * @param castling Whether the move is castling; the flag may be missing from recorded moves
+     * @return The 16-bit Polyglot move
+     */
+    static int toPolyglot(int move, boolean castling) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (castling) {
+            to = Bitboards.square(Bitboards.rowOf(to), to > from ? 7 : 0);
+        }
+        return Bitboards.colOf(to) | (7 - Bitboards.rowOf(to)) << 3
+                | Bitboards.colOf(from) << 6 | (7 - Bitboards.rowOf(from)) << 9
+                | Move.promotion(move) << 12;
+    }
+
+    private static int fromPolyglot(BitboardPosition position, int raw, MoveList legal) {
+        int to = Bitboards.square(7 - ((raw >>> 3) & 7), raw & 7);
+        int from = Bitboards.square(7 - ((raw >>> 9) & 7), (raw >>> 6) & 7);
+        int promotion = (raw >>> 12) & 7;
+        int ownRook = BitboardPosition.pieceCode(position.getSideToMove(), BitboardPosition.ROOK);
+        boolean kingTakesRook = BitboardPosition.typeOf(position.getPieceAt(from)) == BitboardPosition.KING
+                && position.getPieceAt(to) == ownRook;
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            if (Move.from(move) != from || Move.promotion(move) != promotion) {
+                continue;
+            }
+            if (Move.to(move) == to
+                    || (kingTakesRook && Move.isCastling(move) && (Move.to(move) > from) == (to > from))) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Unmap by closing the channel; the mapping itself is released by the garbage collector
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java com.chessgame.book.OpeningBook book.bin [random64.txt] [fen]");
+            return;
+        }
+        // A FEN always contains spaces, a key table path is assumed not to
+        PolyglotKeys keys = PolyglotKeys.getDefault();
+        String fen = Fen.START_POSITION;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].contains(" ")) {
+                fen = args[i];
+            } else {
+                keys = PolyglotKeys.load(Paths.get(args[i]));
+            }
+        }
+        BitboardPosition position = new BitboardPosition();
+        Fen.load(fen, position);
+
+        try (OpeningBook book = new OpeningBook(Paths.get(args[0]), keys)) {
+            System.out.printf("%,d entries, key %016x%n", book.size(), keys.getKey(position));
+            MoveList scratch = new MoveList();
+            for (BookMove move : book.getMoves(position)) {
+                System.out.println(San.toSan(position, move.getMove(), scratch) + " " + move.getWeight());
+            }
+
+            int lookups = 200000;
+            long found = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                found += book.getMoves(position).size();
+            }
+            long nanos = System.nanoTime() - start;
+            System.out.printf("%,d lookups in %.3f s: %.2f us per lookup (%d moves each)%n",
+                    lookups, nanos / 1e9, nanos / 1e3 / lookups, found / lookups);
+        }
+    }
+}
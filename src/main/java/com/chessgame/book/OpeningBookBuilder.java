@@ -0,0 +1,175 @@
+package com.chessgame.book;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Fen;
+import com.chessgame.board.Move;
+import com.chessgame.game.ChessGame;
+import com.chessgame.pgn.PgnGame;
+import com.chessgame.pgn.PgnReader;
+import com.chessgame.pgn.PgnStats;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a Polyglot .bin opening book from games. Every move played in the first
+ * plies of a game is scored for the side that played it: 2 for a win, 1 for a
+ * draw or unknown result, 0 for a loss. A move's weight is the sum of its scores,
+ * scaled down per position if it would not fit in 16 bits.
+ *
+ * Usage:
+ *   java com.chessgame.book.OpeningBookBuilder games.pgn book.bin [plies] [min games]
+ */
+public class OpeningBookBuilder {
+    public static final int DEFAULT_MAX_PLY = 20;
+
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    private final PolyglotKeys keys;
+    private final int maxPly;
+    private final int minGames;
+    private final BitboardPosition position = new BitboardPosition();
+
+    // Position key -> Polyglot move -> {score, games}
+    private final Map<Long, Map<Integer, long[]>> positions = new HashMap<>();
+    private long games;
+
+    public OpeningBookBuilder() {
+        this(PolyglotKeys.getDefault(), DEFAULT_MAX_PLY, 1);
+    }
+
+    /**
+     * Create a builder
+     * @param keys The key table to hash positions with
+     * @param maxPly Only the first this many moves of each game are added
+     * @param minGames Moves played in fewer games are left out of the book
+     */
+    public OpeningBookBuilder(PolyglotKeys keys, int maxPly, int minGames) {
+        this.keys = keys;
+        this.maxPly = maxPly;
+        this.minGames = minGames;
+    }
+
+    /**
+     * Add the opening of a replayed PGN game; a game that failed to replay
+     * contributes the moves before the error
+     * @param game The game from a {@link PgnReader}
+     */
+    public void add(PgnGame game) {
+        add(game.getGame(), game.getResult());
+    }
+
+    /**
+     * Add the opening of a game
+     * @param game The game, with its move history
+     * @param result "1-0", "0-1", "1/2-1/2" or "*"
+     */
+    public void add(ChessGame game, String result) {
+        add(game.getStartFen(), game.getMoveHistory(), game.getMoveCount(), result);
+    }
+
+    /**
+     * Add the opening of a game given as moves from a start position
+     * @param startFen The start position
+     * @param moves Legal packed moves (see {@link Move})
+     * @param count Number of moves in the array
+     * @param result "1-0", "0-1", "1/2-1/2" or "*"
+     */
+    public void add(String startFen, int[] moves, int count, String result) {
+        Fen.load(startFen, position);
+        int winner = result.equals("1-0") ? BitboardPosition.WHITE
+                : result.equals("0-1") ? BitboardPosition.BLACK : -1;
+        int plies = Math.min(count, maxPly);
+        for (int ply = 0; ply < plies; ply++) {
+            int move = moves[ply];
+            int side = position.getSideToMove();
+            int from = Move.from(move);
+            boolean castling = BitboardPosition.typeOf(position.getPieceAt(from)) == BitboardPosition.KING
+                    && Math.abs(Move.to(move) - from) == 2;
+            int score = winner < 0 ? 1 : winner == side ? 2 : 0;
+
+            long[] stats = positions.computeIfAbsent(keys.getKey(position), key -> new LinkedHashMap<>())
+                    .computeIfAbsent(OpeningBook.toPolyglot(move, castling), key -> new long[2]);
+            stats[0] += score;
+            stats[1]++;
+            position.makeMove(move);
+        }
+        games++;
+    }
+
+    public long getGameCount() {
+        return games;
+    }
+
+    public int getPositionCount() {
+        return positions.size();
+    }
+
+    /**
+     * Write the book, sorted by key and then by descending weight
+     * @param file The .bin file to create or replace
+     * @return Number of entries written
+     * @throws IOException if writing fails
+     */
+    public int write(Path file) throws IOException {
+        List<Long> sortedKeys = new ArrayList<>(positions.keySet());
+        sortedKeys.sort(Long::compareUnsigned);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        int written = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (long key : sortedKeys) {
+                List<Map.Entry<Integer, long[]>> moves = new ArrayList<>(positions.get(key).entrySet());
+                moves.removeIf(entry -> entry.getValue()[1] < minGames);
+                moves.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+                long heaviest = moves.isEmpty() ? 0 : moves.get(0).getValue()[0];
+                for (Map.Entry<Integer, long[]> entry : moves) {
+                    long weight = heaviest > MAX_WEIGHT ? entry.getValue()[0] * MAX_WEIGHT / heaviest
+                            : entry.getValue()[0];
+                    if (weight == 0) {
+                        continue; // Polyglot leaves out moves that are never to be played
+                    }
+                    if (buffer.remaining() < OpeningBook.ENTRY_SIZE) {
+                        drain(buffer, channel);
+                    }
+                    buffer.putLong(key).putShort((short) (int) entry.getKey()).putShort((short) weight).putInt(0);
+                    written++;
+                }
+            }
+            drain(buffer, channel);
+        }
+        return written;
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java com.chessgame.book.OpeningBookBuilder games.pgn book.bin [plies] [min games]");
+            return;
+        }
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_PLY;
+        int minGames = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        OpeningBookBuilder builder = new OpeningBookBuilder(PolyglotKeys.getDefault(), plies, minGames);
+        long start = System.nanoTime();
+        PgnStats stats = new PgnReader(builder::add).read(Paths.get(args[0]));
+        int entries = builder.write(Paths.get(args[1]));
+        System.out.printf("%,d games, %,d positions, %,d entries written in %.3f s%n",
+                stats.getGames(), builder.getPositionCount(), entries, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,145 @@
+package com.chessgame.book;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Bitboards;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Position keys laid out the way Polyglot books hash positions: 781 random numbers,
+ * 768 for pieces on squares, 4 for castling rights, 8 for en passant files and one
+ * for white to move. The en passant key only counts when a pawn of the side to move
+ * stands next to the pawn that just advanced two squares.
+ *
+ * Books are only interchangeable between programs that use the same 781 numbers.
+ * {@link #getDefault()} generates its own table, which books built by
+ * {@link OpeningBookBuilder} use by default; to read books made by other Polyglot
+ * tools, load the published Random64 table with {@link #load(Path)}.
+ */
+public final class PolyglotKeys {
+    public static final int KEY_COUNT = 781;
+
+    private static final int CASTLING_OFFSET = 768;
+    private static final int EN_PASSANT_OFFSET = 772;
+    private static final int TURN_OFFSET = 780;
+
+    private static final PolyglotKeys DEFAULT = generate();
+
+    private final long[] random;
+
+    /**
+     * Create a key set from a table
+     * @param random The 781 numbers, in Polyglot order
+     * @throws IllegalArgumentException if the table does not have 781 entries
+     */
+    public PolyglotKeys(long[] random) {
+        if (random.length != KEY_COUNT) {
+            throw new IllegalArgumentException("Expected " + KEY_COUNT + " keys, got " + random.length);
+        }
+        this.random = random.clone();
+    }
+
+    /**
+     * Get the generated key set used when no table is loaded
+     * @return The shared default keys
+     */
+    public static PolyglotKeys getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Load a key table from a text file of 781 hexadecimal numbers. Separators,
+     * "0x" prefixes and C "U"/"ULL" suffixes are ignored, so the Random64 array
+     * can be pasted straight from a C source file.
+     * @param file The table file
+     * @return The key set
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file does not hold 781 numbers
+     */
+    public static PolyglotKeys load(Path file) throws IOException {
+        String text = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII);
+        long[] keys = new long[KEY_COUNT];
+        int count = 0;
+        for (int i = 0; i + 1 < text.length(); i++) {
+            if (text.charAt(i) != '0' || (text.charAt(i + 1) != 'x' && text.charAt(i + 1) != 'X')) {
+                continue;
+            }
+            int end = i + 2;
+            while (end < text.length() && Character.digit(text.charAt(end), 16) >= 0) {
+                end++;
+            }
+            if (end == i + 2 || end - i > 18) {
+                throw new IllegalArgumentException("Bad key at offset " + i + " of " + file);
+            }
+            if (count == KEY_COUNT) {
+                throw new IllegalArgumentException("More than " + KEY_COUNT + " keys in " + file);
+            }
+            keys[count++] = Long.parseUnsignedLong(text.substring(i + 2, end), 16);
+            i = end - 1;
+        }
+        if (count != KEY_COUNT) {
+            throw new IllegalArgumentException("Expected " + KEY_COUNT + " keys, got " + count + " in " + file);
+        }
+        return new PolyglotKeys(keys);
+    }
+
+    /**
+     * Hash a position
+     * @param position The position
+     * @return The Polyglot-style key
+     */
+    public long getKey(BitboardPosition position) {
+        long key = 0L;
+        long occupied = position.getOccupied();
+        while (occupied != 0) {
+            int square = Bitboards.lowestSquare(occupied);
+            occupied &= occupied - 1;
+            int code = position.getPieceAt(square);
+            // Polyglot orders black before white and counts ranks from rank 1
+            int kind = 2 * BitboardPosition.typeOf(code)
+                    + (BitboardPosition.colorOf(code) == BitboardPosition.WHITE ? 1 : 0);
+            key ^= random[64 * kind + 8 * (7 - Bitboards.rowOf(square)) + Bitboards.colOf(square)];
+        }
+
+        int rights = position.getCastlingRights();
+        if ((rights & BitboardPosition.WHITE_KINGSIDE) != 0) key ^= random[CASTLING_OFFSET];
+        if ((rights & BitboardPosition.WHITE_QUEENSIDE) != 0) key ^= random[CASTLING_OFFSET + 1];
+        if ((rights & BitboardPosition.BLACK_KINGSIDE) != 0) key ^= random[CASTLING_OFFSET + 2];
+        if ((rights & BitboardPosition.BLACK_QUEENSIDE) != 0) key ^= random[CASTLING_OFFSET + 3];
+
+        int ep = position.getEnPassantSquare();
+        if (ep >= 0 && canCaptureEnPassant(position, ep)) {
+            key ^= random[EN_PASSANT_OFFSET + Bitboards.colOf(ep)];
+        }
+
+        if (position.getSideToMove() == BitboardPosition.WHITE) {
+            key ^= random[TURN_OFFSET];
+        }
+        return key;
+    }
+
+    private static boolean canCaptureEnPassant(BitboardPosition position, int ep) {
+        int side = position.getSideToMove();
+        int row = Bitboards.rowOf(ep) + (side == BitboardPosition.WHITE ? 1 : -1);
+        int col = Bitboards.colOf(ep);
+        long pawns = position.getPieces(side, BitboardPosition.PAWN);
+        return (col > 0 && (pawns & Bitboards.bit(Bitboards.square(row, col - 1))) != 0)
+                || (col < 7 && (pawns & Bitboards.bit(Bitboards.square(row, col + 1))) != 0);
+    }
+
+    private static PolyglotKeys generate() {
+        // SplitMix64 with its own seed, so these keys are independent of Zobrist's
+        long[] keys = new long[KEY_COUNT];
+        long state = 0x1F2E3D4C5B6A7988L;
+        for (int i = 0; i < KEY_COUNT; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            long z = state;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            keys[i] = z ^ (z >>> 31);
+        }
+        return new PolyglotKeys(keys);
+    }
+}
@@ -0,0 +1,246 @@
+package com.chessgame.cli;
+
+import com.chessgame.board.Move;
+import com.chessgame.board.MoveList;
+import com.chessgame.board.San;
+import com.chessgame.game.ChessGame;
+import com.chessgame.pgn.PgnGame;
+import com.chessgame.pgn.PgnReader;
+import com.chessgame.pgn.PgnStats;
+import com.chessgame.pieces.Piece;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Command-line runner that plays games through ChessGame without a display.
+ * Nothing here touches AWT or Swing, so it runs on servers and in benchmarks.
+ *
+ * Each line of a move-list input is one game, in one of these forms:
+ *   e2e4 e7e5 Nf3                       moves from the start position
+ *   startpos moves e2e4 e7e5            the same, UCI style
+ *   fen FEN [moves e2e4 ...]            moves from a FEN position
+ * Moves may be coordinate notation or SAN; empty lines and lines starting with '#' are skipped.
+ * For every game a tab-separated line gives its number, result, final state, plies,
+ * time and final FEN, followed by a summary. PGN input is replayed with PgnReader.
+ *
+ * Usage:
+ *   java com.chessgame.cli.BatchRunner [--pgn] [--quiet] [--repeat N] [file ...]
+ * With no file, or "-", input is read from stdin.
+ */
+public class BatchRunner {
+    private final PrintStream out;
+    private final boolean quiet;
+    private final MoveList scratch = new MoveList();
+
+    private long games;
+    private long failedGames;
+    private long plies;
+    private long elapsedNanos;
+
+    /**
+     * Create a runner
+     * @param out Where game lines and the summary are printed
+     * @param quiet true to print the summary only
+     */
+    public BatchRunner(PrintStream out, boolean quiet) {
+        this.out = out;
+        this.quiet = quiet;
+    }
+
+    /**
+     * Play one game described by a move-list line
+     * @param line The line; see the class description for its forms
+     * @return The game, or null if the line is empty or a comment
+     */
+    public ChessGame playLine(String line) {
+        String text = line.trim();
+        if (text.isEmpty() || text.startsWith("#")) {
+            return null;
+        }
+        long start = System.nanoTime();
+        ChessGame game = null;
+        String error = null;
+        int ply = 0;
+        try {
+            String[] tokens = text.split("\\s+");
+            int next = 0;
+            if (tokens[0].equals("fen")) {
+                int movesAt = indexOf(tokens, "moves");
+                int end = movesAt < 0 ? tokens.length : movesAt;
+                game = new ChessGame(String.join(" ", Arrays.copyOfRange(tokens, 1, end)));
+                next = movesAt < 0 ? tokens.length : movesAt + 1;
+            } else {
+                game = new ChessGame();
+                if (tokens[0].equals("startpos")) {
+                    next = tokens.length > 1 && tokens[1].equals("moves") ? 2 : 1;
+                }
+            }
+            for (int i = next; i < tokens.length; i++) {
+                if (!game.makeMove(parseMove(game, tokens[i]))) {
+                    throw new IllegalArgumentException("illegal move " + tokens[i]);
+                }
+                ply++;
+            }
+        } catch (IllegalArgumentException e) {
+            error = game == null ? e.getMessage() : "ply " + (ply + 1) + ": " + e.getMessage();
+        }
+        long nanos = System.nanoTime() - start;
+        report(game, error, ply, nanos);
+        return game;
+    }
+
+    /**
+     * Read a coordinate move ("e2e4", "e7e8q") or a SAN move ("Nf3")
+     */
+    private int parseMove(ChessGame game, String text) {
+        try {
+            return Move.parse(text);
+        } catch (IllegalArgumentException e) {
+            return San.parse(game.getBoard().getBitboards(), text, scratch);
+        }
+    }
+
+    private static int indexOf(String[] tokens, String token) {
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i].equals(token)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Play every game in a PGN input
+     * @param input Source of PGN text; it is read to the end
+     * @throws IOException if reading fails
+     */
+    public void playPgn(InputStream input) throws IOException {
+        PgnReader reader = new PgnReader(this::report);
+        PgnStats stats = reader.read(input);
+        elapsedNanos += stats.getElapsedNanos();
+    }
+
+    private void report(PgnGame pgn) {
+        String error = null;
+        if (pgn.hasError()) {
+            error = "ply " + pgn.getErrorPly()
+                    + (pgn.getErrorMove() != null ? " (" + pgn.getErrorMove() + ")" : "") + ": " + pgn.getError();
+        }
+        // PgnReader times the whole input; per-game times are not available
+        report(pgn.getGame(), error, pgn.getMoveCount(), -1);
+    }
+
+    private void report(ChessGame game, String error, int gamePlies, long nanos) {
+        games++;
+        plies += gamePlies;
+        if (nanos >= 0) {
+            elapsedNanos += nanos;
+        }
+        if (error != null) {
+            failedGames++;
+        }
+        if (quiet) {
+            return;
+        }
+        String state = error != null ? "error at " + error : stateOf(game);
+        out.println(games + "\t" + resultOf(game, error) + "\t" + state + "\t" + gamePlies + " plies\t"
+                + (nanos >= 0 ? String.format("%.3f ms", nanos / 1e6) : "-") + "\t"
+                + (game != null ? game.toFen() : "-"));
+    }
+
+    private static String stateOf(ChessGame game) {
+        if (!game.isGameOver()) {
+            return "unfinished";
+        }
+        return game.isKingInCheck(game.getCurrentPlayer()) ? "checkmate" : "stalemate";
+    }
+
+    private static String resultOf(ChessGame game, String error) {
+        if (error != null || game == null || !game.isGameOver()) {
+            return "*";
+        }
+        if (!game.isKingInCheck(game.getCurrentPlayer())) {
+            return "1/2-1/2";
+        }
+        return game.getCurrentPlayer() == Piece.Color.WHITE ? "0-1" : "1-0";
+    }
+
+    /**
+     * Print the totals of everything played so far
+     */
+    public void printSummary() {
+        double seconds = elapsedNanos / 1e9;
+        out.printf("Games: %,d (%,d failed), plies: %,d, time: %.3f s, %,.0f plies/s%n",
+                games, failedGames, plies, seconds, seconds > 0 ? plies / seconds : 0.0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean pgn = false;
+        boolean quiet = false;
+        int repeat = 1;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--pgn":
+                    pgn = true;
+                    break;
+                case "--quiet":
+                    quiet = true;
+                    break;
+                case "--repeat":
+                    repeat = Integer.parseInt(args[++i]);
+                    break;
+                case "-h":
+                case "--help":
+                    System.out.println(
+                            "Usage: java com.chessgame.cli.BatchRunner [--pgn] [--quiet] [--repeat N] [file ...]");
+                    return;
+                default:
+                    files.add(args[i]);
+                    break;
+            }
+        }
+        if (files.isEmpty()) {
+            files.add("-");
+        }
+
+        BatchRunner runner = new BatchRunner(System.out, quiet);
+        for (String file : files) {
+            boolean stdin = file.equals("-");
+            if (pgn || file.endsWith(".pgn")) {
+                for (int pass = 0; pass < (stdin ? 1 : repeat); pass++) {
+                    try (InputStream input = stdin ? System.in : Files.newInputStream(Paths.get(file))) {
+                        runner.playPgn(input);
+                    }
+                }
+                continue;
+            }
+            List<String> lines;
+            if (stdin) {
+                lines = new ArrayList<>();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            } else {
+                lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+            }
+            for (int pass = 0; pass < repeat; pass++) {
+                for (String line : lines) {
+                    runner.playLine(line);
+                }
+            }
+        }
+        runner.printSummary();
+    }
+}
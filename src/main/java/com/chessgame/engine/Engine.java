@@ -0,0 +1,133 @@
+package com.chessgame.engine;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Move;
+import com.chessgame.book.OpeningBook;
+import com.chessgame.game.ChessGame;
+import com.chessgame.metrics.ChessMetrics;
+import com.chessgame.tablebase.Tablebase;
+import java.util.Random;
+
+/**
+ * Computer player that picks moves for a ChessGame.
+ * The game's position is copied before searching, so the game itself is never
+ * touched while the engine thinks. With an opening book set, book positions are
+ * answered from the book without searching, and with a tablebase set, endgames
+ * it covers are played perfectly and scored exactly inside the search.
+ */
+public class Engine {
+    public static final int DEFAULT_HASH_MEGABYTES = 16;
+
+    private final TranspositionTable table;
+    private final Search search;
+    private final Random random = new Random();
+    private volatile OpeningBook openingBook;
+    private volatile Tablebase tablebase;
+
+    public Engine() {
+        this(DEFAULT_HASH_MEGABYTES);
+    }
+
+    /**
+     * Create an engine with a transposition table of the given size
+     * @param hashMegabytes Table size in MB
+     */
+    public Engine(int hashMegabytes) {
+        table = new TranspositionTable(hashMegabytes);
+        search = new Search(table);
+    }
+
+    /**
+     * Search the current position of a game
+     * @param game The game to analyse
+     * @param limits Depth, node and time limits
+     * @return The search result; its best move is Move.NONE if there is no legal move
+     */
+    public SearchResult findBestMove(ChessGame game, SearchLimits limits) {
+        BitboardPosition position = new BitboardPosition(game.getBoard().getBitboards());
+        ChessMetrics.countBoardCopy();
+        OpeningBook book = openingBook;
+        if (book != null) {
+            int bookMove = book.pickMove(position, random);
+            if (bookMove != Move.NONE) {
+                return new SearchResult(bookMove, 0, 0, 0, 0, new int[] {bookMove});
+            }
+        }
+        Tablebase tables = tablebase;
+        search.setTablebase(tables);
+        if (tables != null) {
+            int tableMove = tables.getBestMove(position);
+            if (tableMove != Move.NONE) {
+                int entry = tables.probe(position, new int[Tablebase.SCRATCH_SIZE], new int[Tablebase.SCRATCH_SIZE]);
+                int dtm = Tablebase.distanceOf(entry);
+                int wdl = Tablebase.wdlOf(entry);
+                int score = wdl == Tablebase.WIN ? Search.MATE_SCORE - dtm
+                        : wdl == Tablebase.LOSS ? -Search.MATE_SCORE + dtm : 0;
+                return new SearchResult(tableMove, score, 0, 0, 0, new int[] {tableMove});
+            }
+        }
+        return search.search(position, limits);
+    }
+
+    /**
+     * Search the current position and play the best move in the game
+     * @param game The game to move in
+     * @param limits Depth, node and time limits
+     * @return true if a move was played
+     */
+    public boolean playBestMove(ChessGame game, SearchLimits limits) {
+        if (game.isGameOver()) {
+            return false;
+        }
+        SearchResult result = findBestMove(game, limits);
+        return playMove(game, result.getBestMove());
+    }
+
+    /**
+     * Play a packed move in a game
+     * @param game The game to move in
+     * @param move The packed move
+     * @return true if the game accepted the move
+     */
+    public static boolean playMove(ChessGame game, int move) {
+        return game.makeMove(move);
+    }
+
+    /**
+     * Use an opening book for the positions it covers
+     * @param openingBook The book, or null to always search
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    public OpeningBook getOpeningBook() {
+        return openingBook;
+    }
+
+    /**
+     * Use endgame tables for positions with few pieces
+     * @param tablebase The tables, or null to always search
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    public Tablebase getTablebase() {
+        return tablebase;
+    }
+
+    /**
+     * Interrupt a search running on another thread
+     */
+    public void stop() {
+        search.stop();
+    }
+
+    /**
+     * Forget everything learned from earlier searches, e.g. when a new game starts
+     */
+    public void clear() {
+        table.clear();
+    }
+}
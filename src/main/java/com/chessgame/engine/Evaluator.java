@@ -0,0 +1,144 @@
+package com.chessgame.engine;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Bitboards;
+
+/**
+ * Static position evaluation: material plus piece-square tables, with the king
+ * table blended from middlegame to endgame as pieces come off the board.
+ * Tables are written from white's point of view with a8 first, matching the
+ * square layout; black looks them up mirrored.
+ */
+public final class Evaluator {
+    public static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+
+    private static final int[] PAWN_TABLE = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         10,  10,  20,  30,  30,  20,  10,  10,
+          5,   5,  10,  25,  25,  10,   5,   5,
+          0,   0,   0,  20,  20,   0,   0,   0,
+          5,  -5, -10,   0,   0, -10,  -5,   5,
+          5,  10,  10, -20, -20,  10,  10,   5,
+          0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    private static final int[] KNIGHT_TABLE = {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20,   0,   0,   0,   0, -20, -40,
+        -30,   0,  10,  15,  15,  10,   0, -30,
+        -30,   5,  15,  20,  20,  15,   5, -30,
+        -30,   0,  15,  20,  20,  15,   0, -30,
+        -30,   5,  10,  15,  15,  10,   5, -30,
+        -40, -20,   0,   5,   5,   0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50
+    };
+
+    private static final int[] BISHOP_TABLE = {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,  10,  10,   5,   0, -10,
+        -10,   5,   5,  10,  10,   5,   5, -10,
+        -10,   0,  10,  10,  10,  10,   0, -10,
+        -10,  10,  10,  10,  10,  10,  10, -10,
+        -10,   5,   0,   0,   0,   0,   5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20
+    };
+
+    private static final int[] ROOK_TABLE = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+          5,  10,  10,  10,  10,  10,  10,   5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+          0,   0,   0,   5,   5,   0,   0,   0
+    };
+
+    private static final int[] QUEEN_TABLE = {
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,   5,   5,   5,   0, -10,
+         -5,   0,   5,   5,   5,   5,   0,  -5,
+          0,   0,   5,   5,   5,   5,   0,  -5,
+        -10,   5,   5,   5,   5,   5,   0, -10,
+        -10,   0,   5,   0,   0,   0,   0, -10,
+        -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+
+    private static final int[] KING_MIDDLEGAME_TABLE = {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+         20,  20,   0,   0,   0,   0,  20,  20,
+         20,  30,  10,   0,   0,  10,  30,  20
+    };
+
+    private static final int[] KING_ENDGAME_TABLE = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10,   0,   0, -10, -20, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -30,   0,   0,   0,   0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    private static final int[][] TABLES = {
+        PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE
+    };
+
+    // Non-pawn material of both sides at the start, used to blend the king tables
+    private static final int OPENING_PHASE = 2 * (2 * 320 + 2 * 330 + 2 * 500 + 900);
+
+    private Evaluator() {
+    }
+
+    /**
+     * Evaluate a position
+     * @param position The position to evaluate
+     * @return Score in centipawns from the point of view of the side to move
+     */
+    public static int evaluate(BitboardPosition position) {
+        int score = 0;
+        int phase = 0;
+
+        for (int color = BitboardPosition.WHITE; color <= BitboardPosition.BLACK; color++) {
+            int sign = (color == BitboardPosition.WHITE) ? 1 : -1;
+            int mirror = (color == BitboardPosition.WHITE) ? 0 : 56;
+            for (int type = BitboardPosition.PAWN; type <= BitboardPosition.QUEEN; type++) {
+                long pieces = position.getPieces(color, type);
+                int[] table = TABLES[type];
+                int count = Long.bitCount(pieces);
+                score += sign * count * PIECE_VALUES[type];
+                if (type != BitboardPosition.PAWN) {
+                    phase += count * PIECE_VALUES[type];
+                }
+                while (pieces != 0) {
+                    int square = Bitboards.lowestSquare(pieces);
+                    pieces &= pieces - 1;
+                    score += sign * table[square ^ mirror];
+                }
+            }
+        }
+
+        phase = Math.min(phase, OPENING_PHASE);
+        for (int color = BitboardPosition.WHITE; color <= BitboardPosition.BLACK; color++) {
+            int king = position.getKingSquare(color);
+            if (king < 0) {
+                continue;
+            }
+            int square = king ^ ((color == BitboardPosition.WHITE) ? 0 : 56);
+            int kingScore = (KING_MIDDLEGAME_TABLE[square] * phase
+                    + KING_ENDGAME_TABLE[square] * (OPENING_PHASE - phase)) / OPENING_PHASE;
+            score += (color == BitboardPosition.WHITE) ? kingScore : -kingScore;
+        }
+
+        return position.getSideToMove() == BitboardPosition.WHITE ? score : -score;
+    }
+}
@@ -0,0 +1,167 @@
+package com.chessgame.engine;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Move;
+import com.chessgame.game.ChessGame;
+import com.chessgame.tablebase.Tablebase;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Lazy SMP search: several threads search the same root position independently
+ * and cooperate only through the shared transposition table. Helper threads start
+ * iterative deepening at staggered depths so they explore different parts of the
+ * tree and fill the table ahead of the main thread.
+ * Time and depth limits apply to every thread; node limits apply per thread.
+ */
+public class ParallelSearch implements AutoCloseable {
+    private final TranspositionTable table;
+    private final Search[] searches;
+    private final ExecutorService executor;
+
+    /**
+     * Create a parallel search using one thread per available processor
+     * @param hashMegabytes Size of the shared transposition table in MB
+     */
+    public ParallelSearch(int hashMegabytes) {
+        this(hashMegabytes, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a parallel search
+     * @param hashMegabytes Size of the shared transposition table in MB
+     * @param threads Number of search threads, at least 1
+     */
+    public ParallelSearch(int hashMegabytes, int threads) {
+        int count = Math.max(1, threads);
+        table = new TranspositionTable(hashMegabytes);
+        searches = new Search[count];
+        for (int i = 0; i < count; i++) {
+            searches[i] = new Search(table);
+        }
+        executor = Executors.newFixedThreadPool(Math.max(1, count - 1), runnable -> {
+            Thread thread = new Thread(runnable, "lazy-smp-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getThreadCount() {
+        return searches.length;
+    }
+
+    /**
+     * Score positions with few enough pieces from endgame tables in every thread;
+     * call it between searches, not during one
+     * @param tablebase The tables, or null to always search
+     */
+    public void setTablebase(Tablebase tablebase) {
+        for (Search search : searches) {
+            search.setTablebase(tablebase);
+        }
+    }
+
+    /**
+     * Search the current position of a game without modifying it
+     * @param game The game to analyse
+     * @param limits Depth, node and time limits
+     * @return The combined result
+     */
+    public ParallelSearchResult findBestMove(ChessGame game, SearchLimits limits) {
+        return search(game.getBoard().getBitboards(), limits);
+    }
+
+    /**
+     * Search a position with all threads. Each thread works on its own copy.
+     * @param root The position to search; it is not modified
+     * @param limits Depth, node and time limits
+     * @return The deepest result, preferring the main thread's on equal depth
+     */
+    public ParallelSearchResult search(BitboardPosition root, SearchLimits limits) {
+        long startTime = System.currentTimeMillis();
+        table.newSearch();
+
+        List<Future<SearchResult>> futures = new ArrayList<>();
+        for (int i = 1; i < searches.length; i++) {
+            final Search helper = searches[i];
+            final BitboardPosition position = new BitboardPosition(root);
+            // Stagger start depths 2, 3, 1, 2, 3, 1, ... across helpers, so the first helpers
+            // do not repeat the main search, which starts at depth 1
+            final int startDepth = 1 + (i % 3);
+            futures.add(executor.submit(() -> helper.search(position, limits, startDepth)));
+        }
+
+        // The main search runs on the calling thread
+        SearchResult best = searches[0].search(new BitboardPosition(root), limits);
+
+        for (int i = 1; i < searches.length; i++) {
+            searches[i].stop();
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            Search helper = searches[i + 1];
+            SearchResult helperResult = awaitHelper(futures.get(i), helper);
+            // A helper's line is only used if it finished a deeper iteration than the main thread
+            if (helperResult != null && helperResult.getBestMove() != Move.NONE
+                    && helperResult.getDepth() == helper.getCompletedDepth()
+                    && helperResult.getDepth() > best.getDepth()) {
+                best = helperResult;
+            }
+        }
+
+        long[] threadNodes = new long[searches.length];
+        for (int i = 0; i < searches.length; i++) {
+            threadNodes[i] = searches[i].getNodes();
+        }
+        return new ParallelSearchResult(best, System.currentTimeMillis() - startTime, threadNodes);
+    }
+
+    /**
+     * Wait for a helper, repeating the stop request in case the helper had not
+     * started searching yet when it was first asked to stop
+     */
+    private SearchResult awaitHelper(Future<SearchResult> future, Search helper) {
+        while (true) {
+            try {
+                return future.get(1, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                helper.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search thread failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Interrupt a search running on another thread
+     */
+    public void stop() {
+        for (Search search : searches) {
+            search.stop();
+        }
+    }
+
+    /**
+     * Forget everything learned from earlier searches
+     */
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * Stop the worker threads
+     */
+    @Override
+    public void close() {
+        stop();
+        executor.shutdownNow();
+    }
+}
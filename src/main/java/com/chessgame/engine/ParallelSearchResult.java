@@ -0,0 +1,49 @@
+package com.chessgame.engine;
+
+/**
+ * Outcome of a parallel search: the chosen line plus the nodes searched by each thread
+ */
+public class ParallelSearchResult extends SearchResult {
+    private final long[] threadNodes;
+
+    /**
+     * Combine the chosen thread's result with the work done by all threads
+     * @param chosen Result of the thread whose move is played
+     * @param elapsedMillis Wall-clock time of the whole search
+     * @param threadNodes Nodes searched by each thread, main thread first
+     */
+    public ParallelSearchResult(SearchResult chosen, long elapsedMillis, long[] threadNodes) {
+        super(chosen.getBestMove(), chosen.getScore(), chosen.getDepth(), sum(threadNodes),
+                elapsedMillis, chosen.getPrincipalVariation());
+        this.threadNodes = threadNodes.clone();
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    public int getThreadCount() {
+        return threadNodes.length;
+    }
+
+    /**
+     * Get the nodes searched by each thread
+     * @return Node counts, index 0 being the main thread
+     */
+    public long[] getThreadNodes() {
+        return threadNodes.clone();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(super.toString()).append(" threads");
+        for (long nodes : threadNodes) {
+            sb.append(' ').append(nodes);
+        }
+        return sb.toString();
+    }
+}
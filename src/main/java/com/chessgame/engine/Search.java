@@ -0,0 +1,364 @@
+package com.chessgame.engine;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Move;
+import com.chessgame.board.MoveGenerator;
+import com.chessgame.board.MoveList;
+import com.chessgame.tablebase.Tablebase;
+
+/**
+ * Negamax alpha-beta search with iterative deepening.
+ * Uses the transposition table for cutoffs and move ordering, captures ordered by
+ * MVV-LVA, killer moves, a check extension and a capture-only quiescence search.
+ * Positions covered by an endgame tablebase are scored from it instead of searched.
+ * A Search instance is not thread-safe; parallel searches use one instance per
+ * thread sharing the same table.
+ */
+public class Search {
+    public static final int MATE_SCORE = 30000;
+    public static final int INFINITY = 32000;
+
+    private static final int MAX_PLY = 128;
+    private static final int MATE_BOUND = MATE_SCORE - MAX_PLY;
+
+    // Move ordering scores
+    private static final int TT_MOVE_SCORE = 1000000;
+    private static final int CAPTURE_SCORE = 100000;
+    private static final int KILLER_SCORE = 90000;
+
+    private final TranspositionTable table;
+    private BitboardPosition position;
+    private Tablebase tablebase;
+
+    private final MoveList[] moveLists = new MoveList[MAX_PLY];
+    private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[] tablebaseSquares = new int[Tablebase.SCRATCH_SIZE];
+    private final int[] tablebaseTransformed = new int[Tablebase.SCRATCH_SIZE];
+
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private int rootDepth;
+    private boolean aborted;
+    private volatile boolean stopRequested;
+    private int completedDepth;
+
+    public Search(TranspositionTable table) {
+        this.table = table;
+        for (int i = 0; i < MAX_PLY; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Ask a running search to return as soon as possible; safe to call from another thread
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Score positions with few enough pieces from endgame tables
+     * @param tablebase The tables, or null to always search
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Get the nodes searched so far by the current or last search
+     * @return Node count
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Get the deepest iteration the last search finished without being interrupted
+     * @return The completed depth, or 0 if no iteration completed
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Search a position with iterative deepening until a limit is reached.
+     * The position is searched in place and is restored when the search returns.
+     * @param root The position to search
+     * @param limits Depth, node and time limits
+     * @return The result of the deepest completed iteration
+     */
+    public SearchResult search(BitboardPosition root, SearchLimits limits) {
+        return search(root, limits, 1);
+    }
+
+    /**
+     * Search starting iterative deepening at a given depth
+     * @param root The position to search
+     * @param limits Depth, node and time limits
+     * @param startDepth First depth to search; deeper starts let parallel helpers diverge
+     * @return The result of the deepest completed iteration
+     */
+    public SearchResult search(BitboardPosition root, SearchLimits limits, int startDepth) {
+        position = root;
+        nodes = 0;
+        completedDepth = 0;
+        aborted = false;
+        stopRequested = false;
+        nodeLimit = limits.getMaxNodes();
+        long start = System.nanoTime();
+        deadline = limits.getTimeMillis() > 0 ? start + limits.getTimeMillis() * 1000000L : 0;
+        int maxDepth = limits.getMaxDepth() > 0 ? Math.min(limits.getMaxDepth(), MAX_PLY - 1) : MAX_PLY - 1;
+
+        for (int[] killer : killers) {
+            killer[0] = Move.NONE;
+            killer[1] = Move.NONE;
+        }
+
+        SearchResult result = null;
+        for (int depth = Math.max(1, Math.min(startDepth, maxDepth)); depth <= maxDepth; depth++) {
+            rootDepth = depth;
+            int score = alphaBeta(depth, -INFINITY, INFINITY, 0);
+            // An interrupted iteration is only trusted if nothing deeper has completed yet
+            if (aborted && result != null) {
+                break;
+            }
+
+            int[] pv = new int[pvLength[0]];
+            System.arraycopy(pvTable[0], 0, pv, 0, pv.length);
+            long elapsed = (System.nanoTime() - start) / 1000000L;
+            result = new SearchResult(pv.length > 0 ? pv[0] : Move.NONE, score, depth, nodes, elapsed, pv);
+            if (!aborted) {
+                completedDepth = depth;
+            }
+
+            if (aborted || pv.length == 0 || Math.abs(score) >= MATE_BOUND) {
+                break;
+            }
+            // The next iteration would almost certainly not finish in the remaining time
+            if (deadline > 0 && System.nanoTime() > start + (deadline - start) / 2) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private int alphaBeta(int depth, int alpha, int beta, int ply) {
+        pvLength[ply] = ply;
+        if (ply > 0 && (position.getHalfmoveClock() >= 100 || position.isRepetition())) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return Evaluator.evaluate(position);
+        }
+        if (ply > 0 && tablebase != null
+                && Long.bitCount(position.getOccupied()) <= tablebase.getMaxPieces()) {
+            int entry = tablebase.probe(position, tablebaseSquares, tablebaseTransformed);
+            int wdl = Tablebase.wdlOf(entry);
+            if (wdl == Tablebase.DRAW) {
+                return 0;
+            }
+            if (wdl != Tablebase.UNKNOWN) {
+                // Exact mate distance, scored like a mate found by the search
+                int distance = ply + Tablebase.distanceOf(entry);
+                return wdl == Tablebase.WIN ? MATE_SCORE - distance : -MATE_SCORE + distance;
+            }
+        }
+
+        int side = position.getSideToMove();
+        boolean inCheck = position.isInCheck(side);
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiescence(alpha, beta, ply);
+        }
+
+        nodes++;
+        checkLimits();
+        if (aborted) {
+            return 0;
+        }
+
+        long key = position.getHash();
+        int ttMove = Move.NONE;
+        long entry = table.probe(key);
+        if (entry != TranspositionTable.MISS) {
+            ttMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int ttScore = fromTableScore(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && ttScore >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && ttScore <= alpha)) {
+                    return ttScore;
+                }
+            }
+        }
+
+        MoveList list = moveLists[ply];
+        MoveGenerator.generate(position, list);
+        scoreMoves(ply, list, ttMove);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Move.NONE;
+        int legalMoves = 0;
+
+        for (int i = 0; i < list.size(); i++) {
+            int move = list.pickBest(i);
+            position.makeMove(move);
+            if (position.isInCheck(side)) {
+                position.unmakeMove();
+                continue;
+            }
+            legalMoves++;
+            int score = -alphaBeta(depth - 1, -beta, -alpha, ply + 1);
+            position.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (score >= beta) {
+                        if (!Move.isCapture(move)) {
+                            storeKiller(ply, move);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (legalMoves == 0) {
+            return inCheck ? -MATE_SCORE + ply : 0;
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER
+                : bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        table.store(key, bestMove, toTableScore(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    private int quiescence(int alpha, int beta, int ply) {
+        pvLength[ply] = ply;
+        nodes++;
+        checkLimits();
+        if (aborted) {
+            return 0;
+        }
+
+        int standPat = Evaluator.evaluate(position);
+        if (standPat >= beta || ply >= MAX_PLY - 1) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        int side = position.getSideToMove();
+        MoveList list = moveLists[ply];
+        MoveGenerator.generateCaptures(position, list);
+        scoreMoves(ply, list, Move.NONE);
+        for (int i = 0; i < list.size(); i++) {
+            int move = list.pickBest(i);
+            position.makeMove(move);
+            if (position.isInCheck(side)) {
+                position.unmakeMove();
+                continue;
+            }
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            position.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score >= beta) {
+                return score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+        return alpha;
+    }
+
+    private void scoreMoves(int ply, MoveList list, int ttMove) {
+        for (int i = 0; i < list.size(); i++) {
+            int move = list.get(i);
+            int score;
+            if (Move.key(move) == ttMove) {
+                score = TT_MOVE_SCORE;
+            } else if (Move.isCapture(move)) {
+                int victim = position.getPieceAt(Move.to(move));
+                int victimValue = victim == BitboardPosition.NO_PIECE
+                        ? Evaluator.PIECE_VALUES[BitboardPosition.PAWN]
+                        : Evaluator.PIECE_VALUES[BitboardPosition.typeOf(victim)];
+                int attacker = BitboardPosition.typeOf(position.getPieceAt(Move.from(move)));
+                score = CAPTURE_SCORE + victimValue * 10 - attacker;
+            } else if (move == killers[ply][0] || move == killers[ply][1]) {
+                score = KILLER_SCORE;
+            } else {
+                score = Move.promotion(move) == BitboardPosition.QUEEN ? KILLER_SCORE + 1 : 0;
+            }
+            list.setScore(i, score);
+        }
+    }
+
+    private void storeKiller(int ply, int move) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+    }
+
+    private void updatePrincipalVariation(int ply, int move) {
+        pvTable[ply][ply] = move;
+        int length = pvLength[ply + 1];
+        for (int i = ply + 1; i < length; i++) {
+            pvTable[ply][i] = pvTable[ply + 1][i];
+        }
+        pvLength[ply] = Math.max(length, ply + 1);
+    }
+
+    private void checkLimits() {
+        // Depth 1 always completes so there is a move to play
+        if ((nodes & 1023) != 0 || rootDepth <= 1) {
+            return;
+        }
+        if (stopRequested
+                || (nodeLimit > 0 && nodes >= nodeLimit)
+                || (deadline > 0 && System.nanoTime() >= deadline)) {
+            aborted = true;
+        }
+    }
+
+    /**
+     * Mate scores are stored relative to the node so they stay valid at other plies
+     */
+    private static int toTableScore(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTableScore(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+}
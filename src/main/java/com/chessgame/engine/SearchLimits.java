@@ -0,0 +1,55 @@
+package com.chessgame.engine;
+
+/**
+ * Limits for a single search. A value of 0 means the limit is not used.
+ */
+public class SearchLimits {
+    private final int maxDepth;
+    private final long maxNodes;
+    private final long timeMillis;
+
+    public SearchLimits(int maxDepth, long maxNodes, long timeMillis) {
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.timeMillis = timeMillis;
+    }
+
+    /**
+     * Limit a search to a time budget
+     * @param millis Milliseconds to think
+     * @return The limits
+     */
+    public static SearchLimits ofTime(long millis) {
+        return new SearchLimits(0, 0, millis);
+    }
+
+    /**
+     * Limit a search to a fixed depth
+     * @param depth Depth in plies
+     * @return The limits
+     */
+    public static SearchLimits ofDepth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    /**
+     * Limit a search to a number of nodes
+     * @param nodes Node budget
+     * @return The limits
+     */
+    public static SearchLimits ofNodes(long nodes) {
+        return new SearchLimits(0, nodes, 0);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+}
@@ -0,0 +1,78 @@
+package com.chessgame.engine;
+
+import com.chessgame.board.Move;
+
+/**
+ * Outcome of a search: the best move with its score and principal variation
+ */
+public class SearchResult {
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedMillis;
+    private final int[] principalVariation;
+
+    public SearchResult(int bestMove, int score, int depth, long nodes, long elapsedMillis, int[] principalVariation) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+        this.principalVariation = principalVariation;
+    }
+
+    /**
+     * Get the best move found
+     * @return Packed move, or Move.NONE if the side to move has no legal move
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Get the score of the best move
+     * @return Centipawns from the side to move's point of view; mate scores are near +/-Search.MATE_SCORE
+     */
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public int[] getPrincipalVariation() {
+        return principalVariation.clone();
+    }
+
+    /**
+     * Get the principal variation in coordinate notation
+     * @return Space separated moves, e.g. "e2e4 e7e5 g1f3"
+     */
+    public String getPrincipalVariationText() {
+        StringBuilder sb = new StringBuilder();
+        for (int move : principalVariation) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(Move.toString(move));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        long nps = elapsedMillis > 0 ? nodes * 1000 / elapsedMillis : nodes;
+        return "depth " + depth + " score " + score + " nodes " + nodes + " time " + elapsedMillis
+                + "ms nps " + nps + " pv " + getPrincipalVariationText();
+    }
+}
@@ -0,0 +1,183 @@
+package com.chessgame.engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table shared by search threads without locks.
+ *
+ * Entries live in a flat long[] as pairs of (key ^ data, data). A reader accepts an
+ * entry only if the two words XOR back to the probed key, so a torn or racing write
+ * is simply seen as a miss instead of corrupt data. Entries are grouped four to a
+ * bucket (one 64-byte cache line); replacement prefers stale and shallow entries.
+ *
+ * Data word layout: move (bits 0-15), score (16-31, signed), depth (32-39),
+ * bound (40-41), age (42-47).
+ */
+public class TranspositionTable {
+    public static final int BOUND_UPPER = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_EXACT = 3;
+
+    /** Returned by {@link #probe(long)} when the position is not stored */
+    public static final long MISS = 0L;
+
+    private static final int ENTRIES_PER_BUCKET = 4;
+    private static final int LONGS_PER_BUCKET = ENTRIES_PER_BUCKET * 2;
+    private static final int AGE_MASK = 63;
+
+    private long[] table;
+    private int bucketMask;
+    private volatile int age;
+
+    /**
+     * Create a table using about the given amount of memory
+     * @param megabytes Table size in MB, rounded down to a power-of-two bucket count
+     */
+    public TranspositionTable(int megabytes) {
+        resize(megabytes);
+    }
+
+    /**
+     * Reallocate the table, dropping all entries
+     * @param megabytes Table size in MB
+     */
+    public void resize(int megabytes) {
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        long buckets = Long.highestOneBit(bytes / (LONGS_PER_BUCKET * 8L));
+        // Keep the array within Java's index range
+        buckets = Math.min(buckets, 1L << 27);
+        table = new long[(int) buckets * LONGS_PER_BUCKET];
+        bucketMask = (int) buckets - 1;
+        age = 0;
+    }
+
+    /**
+     * Remove all entries
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        age = 0;
+    }
+
+    /**
+     * Start a new search; entries from earlier searches become preferred for replacement
+     */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * Get the number of entries the table can hold
+     * @return Entry capacity
+     */
+    public int capacity() {
+        return table.length / 2;
+    }
+
+    /**
+     * Look up a position
+     * @param key Zobrist key of the position
+     * @return The packed data word, or MISS
+     */
+    public long probe(long key) {
+        long[] t = table;
+        int base = bucketIndex(key);
+        for (int i = 0; i < LONGS_PER_BUCKET; i += 2) {
+            long data = t[base + i + 1];
+            if ((t[base + i] ^ data) == key && data != MISS) {
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Store a search result
+     * @param key Zobrist key of the position
+     * @param move Best move found, or 0 if none; only the low 16 bits are kept
+     * @param score Score from the side to move's point of view
+     * @param depth Remaining search depth of the result
+     * @param bound BOUND_UPPER, BOUND_LOWER or BOUND_EXACT
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        long[] t = table;
+        int base = bucketIndex(key);
+        int currentAge = age;
+
+        int replace = base;
+        int replaceWorth = Integer.MAX_VALUE;
+        for (int i = 0; i < LONGS_PER_BUCKET; i += 2) {
+            long data = t[base + i + 1];
+            if ((t[base + i] ^ data) == key) {
+                // Same position: keep the old move if this result has none
+                if (move == 0) {
+                    move = move(data);
+                }
+                replace = base + i;
+                break;
+            }
+            // Prefer empty, old and shallow entries
+            int relativeAge = (currentAge - age(data)) & AGE_MASK;
+            int worth = data == MISS ? Integer.MIN_VALUE : depth(data) - 8 * relativeAge;
+            if (worth < replaceWorth) {
+                replaceWorth = worth;
+                replace = base + i;
+            }
+        }
+
+        long data = pack(move, score, depth, bound, currentAge);
+        t[replace] = key ^ data;
+        t[replace + 1] = data;
+    }
+
+    /**
+     * Estimate how full the table is from a sample of buckets
+     * @return Used entries per thousand that belong to the current search
+     */
+    public int hashfull() {
+        long[] t = table;
+        int sampleBuckets = Math.min(250, bucketMask + 1);
+        int used = 0;
+        for (int b = 0; b < sampleBuckets; b++) {
+            for (int i = 0; i < LONGS_PER_BUCKET; i += 2) {
+                long data = t[b * LONGS_PER_BUCKET + i + 1];
+                if (data != MISS && age(data) == age) {
+                    used++;
+                }
+            }
+        }
+        return used * 1000 / (sampleBuckets * ENTRIES_PER_BUCKET);
+    }
+
+    private int bucketIndex(long key) {
+        return ((int) (key >>> 32) & bucketMask) * LONGS_PER_BUCKET;
+    }
+
+    private static long pack(int move, int score, int depth, int bound, int age) {
+        return (move & 0xFFFFL)
+                | (long) (score & 0xFFFF) << 16
+                | (long) (Math.max(0, Math.min(255, depth))) << 32
+                | (long) bound << 40
+                | (long) age << 42;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 32) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 40) & 3);
+    }
+
+    private static int age(long data) {
+        return (int) ((data >>> 42) & AGE_MASK);
+    }
+}
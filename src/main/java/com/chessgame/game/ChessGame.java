@@ -1,40 +1,92 @@
 package com.chessgame.game;
 
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Bitboards;
 import com.chessgame.board.ChessBoard;
+import com.chessgame.board.Fen;
+import com.chessgame.board.Move;
+import com.chessgame.board.MoveGenerator;
+import com.chessgame.board.MoveList;
 import com.chessgame.board.Position;
+import com.chessgame.metrics.ChessMetrics;
 import com.chessgame.pieces.Piece;
-import com.chessgame.pieces.King;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * Main chess game logic and state management
+ * Main chess game logic and state management.
+ * makeMove, isValidMove, isKingInCheck and the game-end check report their
+ * latency and counts to {@link ChessMetrics} when metrics are enabled.
  */
 public class ChessGame {
     private ChessBoard board;
-    private Piece.Color currentPlayer;
     private boolean gameOver;
     private String gameResult;
+    private String startFen;
+    private int[] moveHistory = new int[128];
+    private int moveCount;
     
     public ChessGame() {
-        board = new ChessBoard();
-        currentPlayer = Piece.Color.WHITE; // White always starts
+        board = new ChessBoard(); // White always starts
         gameOver = false;
         gameResult = "";
+        startFen = Fen.START_POSITION;
     }
     
     /**
-     * Attempt to make a move
+     * Create a game starting from a FEN position
+     * @param fen The position in Forsyth-Edwards Notation
+     */
+    public ChessGame(String fen) {
+        board = new ChessBoard(fen);
+        gameOver = false;
+        gameResult = "";
+        startFen = fen;
+        checkGameEnd();
+    }
+    
+    /**
+     * Attempt to make a move, promoting pawns to a queen
      * @param from Starting position
      * @param to Destination position
      * @return true if move was successful, false otherwise
      */
     public boolean makeMove(Position from, Position to) {
+        return makeMove(from, to, BitboardPosition.QUEEN);
+    }
+    
+    /**
+     * Attempt to make a move
+     * @param from Starting position
+     * @param to Destination position
+     * @param promotionType Piece type a pawn reaching the last row becomes,
+     *                      {@link BitboardPosition#KNIGHT} to {@link BitboardPosition#QUEEN}
+     * @return true if move was successful, false otherwise
+     */
+    public boolean makeMove(Position from, Position to, int promotionType) {
+        long start = ChessMetrics.startTimer();
+        boolean moved = tryMakeMove(from, to, promotionType);
+        ChessMetrics.stopTimer(ChessMetrics.MAKE_MOVE, start);
+        if (moved) {
+            ChessMetrics.countMoveMade();
+        } else {
+            ChessMetrics.countRejectedMove();
+        }
+        return moved;
+    }
+    
+    private boolean tryMakeMove(Position from, Position to, int promotionType) {
         if (gameOver) {
             return false;
         }
         
+        if (promotionType < BitboardPosition.KNIGHT || promotionType > BitboardPosition.QUEEN) {
+            return false; // Pawns cannot become kings, pawns or unknown pieces
+        }
+        
         Piece piece = board.getPiece(from);
-        if (piece == null || piece.getColor() != currentPlayer) {
+        if (piece == null || piece.getColor() != getCurrentPlayer()) {
             return false; // No piece or wrong color
         }
         
@@ -42,11 +94,9 @@ public class ChessGame {
             return false; // Invalid move
         }
         
-        // Make the move
-        board.movePiece(from, to);
-        
-        // Switch turns
-        currentPlayer = (currentPlayer == Piece.Color.WHITE) ? Piece.Color.BLACK : Piece.Color.WHITE;
+        // Make the move; the board switches turns
+        recordMove(from, to, promotionType);
+        board.makeMove(from, to, promotionType);
         
         // Check for game end conditions
         checkGameEnd();
@@ -54,6 +104,49 @@ public class ChessGame {
         return true;
     }
     
+    /**
+     * Attempt to make a packed move, e.g. one from {@link #getLegalMoves(MoveList)}
+     * @param move Move packed as described in {@link Move}
+     * @return true if move was successful, false otherwise
+     */
+    public boolean makeMove(int move) {
+        if (move == Move.NONE) {
+            return false;
+        }
+        int promotion = Move.promotion(move);
+        return makeMove(Move.fromPosition(move), Move.toPosition(move),
+                promotion == 0 ? BitboardPosition.QUEEN : promotion);
+    }
+    
+    /**
+     * Take back the last move, on the board and in the move history
+     * @return true if a move was taken back, false if none was played
+     */
+    public boolean undoMove() {
+        if (moveCount == 0 || !board.unmakeMove()) {
+            return false;
+        }
+        moveCount--;
+        // No move can be played once the game is over, so the position before the last move was not
+        gameOver = false;
+        gameResult = "";
+        return true;
+    }
+    
+    /**
+     * Append a move about to be played to the history, with the promotion
+     * piece only when a pawn reaches the last row
+     */
+    private void recordMove(Position from, Position to, int promotionType) {
+        int fromSquare = from.getSquare();
+        int type = BitboardPosition.typeOf(board.getBitboards().getPieceAt(fromSquare));
+        boolean promotes = type == BitboardPosition.PAWN && (to.getRow() == 0 || to.getRow() == 7);
+        if (moveCount == moveHistory.length) {
+            moveHistory = Arrays.copyOf(moveHistory, moveCount * 2);
+        }
+        moveHistory[moveCount++] = Move.encode(fromSquare, to.getSquare(), promotes ? promotionType : 0);
+    }
+    
     /**
      * Check if a move is valid
      * @param from Starting position
@@ -61,47 +154,87 @@ public class ChessGame {
      * @return true if the move is valid
      */
     public boolean isValidMove(Position from, Position to) {
+        long start = ChessMetrics.startTimer();
+        Piece piece = board.getPiece(from);
+        // Check if the destination is among the piece's legal moves
+        boolean valid = piece != null && to.isValid()
+                && (legalTargets(from.getSquare(), piece.getColor().ordinal()) & Bitboards.bit(to.getSquare())) != 0;
+        ChessMetrics.stopTimer(ChessMetrics.IS_VALID_MOVE, start);
+        return valid;
+    }
+    
+    /**
+     * Write every legal move of the side to move into a reusable list, without allocating
+     * @param moves Cleared and filled with packed moves (see {@link Move})
+     */
+    public void getLegalMoves(MoveList moves) {
+        MoveGenerator.generateLegal(board.getBitboards(), moves);
+        ChessMetrics.countMovesGenerated(moves.size());
+    }
+    
+    /**
+     * Get the legal destinations of the piece on a square.
+     * Convenience wrapper for the GUI; hot paths should use {@link #getLegalMoves(MoveList)}.
+     * @param from Position of the piece
+     * @return Positions the piece can legally move to
+     */
+    public List<Position> getValidMoves(Position from) {
+        List<Position> validMoves = new ArrayList<>();
         Piece piece = board.getPiece(from);
         if (piece == null) {
-            return false;
+            return validMoves;
         }
         
-        // Check if the destination is in the piece's valid moves
-        List<Position> validMoves = piece.getValidMoves(board.getBoardArray());
-        if (!validMoves.contains(to)) {
-            return false;
+        long targets = legalTargets(from.getSquare(), piece.getColor().ordinal());
+        while (targets != 0) {
+            validMoves.add(Position.of(Bitboards.lowestSquare(targets)));
+            targets &= targets - 1;
         }
-        
-        // Check if move would put own king in check
-        return !wouldMoveExposeKing(from, to, piece.getColor());
+        return validMoves;
     }
     
     /**
-     * Check if a move would expose the king to check
-     * @param from Starting position
-     * @param to Destination position
+     * Get the legal destinations of a piece as a bitboard.
+     * For the side to move this is one pass of the legal generator, using the
+     * position's pins, checkers and king danger squares.
+     * @param fromSquare Square of the piece
+     * @param color Color of the piece
+     * @return Bitboard of legal destination squares
+     */
+    private long legalTargets(int fromSquare, int color) {
+        BitboardPosition bitboards = board.getBitboards();
+        if (color == bitboards.getSideToMove()) {
+            long targets = MoveGenerator.getLegalTargets(bitboards, fromSquare);
+            ChessMetrics.countMovesGenerated(Long.bitCount(targets));
+            return targets;
+        }
+        long targets = bitboards.getTargets(fromSquare);
+        long legal = 0L;
+        while (targets != 0) {
+            int to = Bitboards.lowestSquare(targets);
+            targets &= targets - 1;
+            if (!wouldMoveExposeKing(fromSquare, to, color)) {
+                legal |= Bitboards.bit(to);
+            }
+        }
+        ChessMetrics.countMovesGenerated(Long.bitCount(legal));
+        return legal;
+    }
+    
+    /**
+     * Check if a move of the side not to move would expose its king to check.
+     * The move is made and unmade in place on the bitboards, so the
+     * captured piece, castling rights and en passant square are restored exactly.
+     * @param from Starting square
+     * @param to Destination square
      * @param color Color of the moving piece
      * @return true if the move would expose the king
      */
-    private boolean wouldMoveExposeKing(Position from, Position to, Piece.Color color) {
-        // Make a temporary move
-        Piece movingPiece = board.getPiece(from);
-        Piece capturedPiece = board.getPiece(to);
-        
-        // Simulate the move
-        board.movePiece(from, to);
-        
-        // Check if king is in check after the move
-        boolean kingInCheck = isKingInCheck(color);
-        
-        // Undo the move
-        board.movePiece(to, from);
-        if (capturedPiece != null) {
-            // This is a simplified undo - in a full implementation, 
-            // you'd need to properly restore the captured piece
-            // For now, we'll work with this limitation
-        }
-        
+    private boolean wouldMoveExposeKing(int from, int to, int color) {
+        BitboardPosition bitboards = board.getBitboards();
+        bitboards.makeMove(from, to, BitboardPosition.QUEEN);
+        boolean kingInCheck = bitboards.isInCheck(color);
+        bitboards.unmakeMove();
         return kingInCheck;
     }
     
@@ -111,69 +244,40 @@ public class ChessGame {
      * @return true if the king is in check
      */
     public boolean isKingInCheck(Piece.Color color) {
-        Position kingPos = board.findKing(color);
-        if (kingPos == null) {
-            return false; // No king found (shouldn't happen in normal game)
-        }
-        
-        Piece.Color opponentColor = (color == Piece.Color.WHITE) ? Piece.Color.BLACK : Piece.Color.WHITE;
-        
-        // Check if any opponent piece can attack the king
-        Piece[][] boardArray = board.getBoardArray();
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = boardArray[row][col];
-                if (piece != null && piece.getColor() == opponentColor) {
-                    List<Position> validMoves = piece.getValidMoves(boardArray);
-                    if (validMoves.contains(kingPos)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        
-        return false;
+        // Constant time for the side to move; no king found returns false
+        long start = ChessMetrics.startTimer();
+        boolean inCheck = board.getBitboards().isInCheck(color.ordinal());
+        ChessMetrics.stopTimer(ChessMetrics.IS_KING_IN_CHECK, start);
+        return inCheck;
     }
     
     /**
      * Check for game end conditions (checkmate, stalemate)
      */
     private void checkGameEnd() {
+        long start = ChessMetrics.startTimer();
+        Piece.Color currentPlayer = getCurrentPlayer();
         if (isKingInCheck(currentPlayer)) {
-            if (hasNoValidMoves(currentPlayer)) {
+            if (hasNoValidMoves()) {
                 gameOver = true;
                 Piece.Color winner = (currentPlayer == Piece.Color.WHITE) ? Piece.Color.BLACK : Piece.Color.WHITE;
                 gameResult = winner + " wins by checkmate!";
             }
         } else {
-            if (hasNoValidMoves(currentPlayer)) {
+            if (hasNoValidMoves()) {
                 gameOver = true;
                 gameResult = "Stalemate - Draw!";
             }
         }
+        ChessMetrics.stopTimer(ChessMetrics.CHECK_GAME_END, start);
     }
     
     /**
-     * Check if a player has any valid moves
-     * @param color Color of the player to check
-     * @return true if the player has no valid moves
-     */
-    private boolean hasNoValidMoves(Piece.Color color) {
-        Piece[][] boardArray = board.getBoardArray();
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = boardArray[row][col];
-                if (piece != null && piece.getColor() == color) {
-                    List<Position> validMoves = piece.getValidMoves(boardArray);
-                    for (Position move : validMoves) {
-                        if (!wouldMoveExposeKing(piece.getPosition(), move, color)) {
-                            return false; // Found at least one valid move
-                        }
-                    }
-                }
-            }
-        }
-        return true; // No valid moves found
+     * Check if the side to move has any valid moves
+     * @return true if the side to move has no valid moves
+     */
+    private boolean hasNoValidMoves() {
+        return !MoveGenerator.hasLegalMove(board.getBitboards());
     }
     
     // Getters
@@ -182,7 +286,48 @@ public class ChessGame {
     }
     
     public Piece.Color getCurrentPlayer() {
-        return currentPlayer;
+        return board.getSideToMove();
+    }
+    
+    /**
+     * Get the current position in Forsyth-Edwards Notation, including the clocks
+     * @return FEN string that {@link #ChessGame(String)} accepts
+     */
+    public String toFen() {
+        return board.toFen();
+    }
+    
+    /**
+     * Get the position the game started from
+     * @return FEN string of the starting position
+     */
+    public String getStartFen() {
+        return startFen;
+    }
+    
+    /**
+     * Get the number of moves played since the start position
+     * @return Number of plies
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+    
+    /**
+     * Get every move played since the start position
+     * @return Packed moves without flags (see {@link Move}), oldest first
+     */
+    public int[] getMoveHistory() {
+        return Arrays.copyOf(moveHistory, moveCount);
+    }
+    
+    /**
+     * Get a 64-bit key identifying the current position, for caching,
+     * repetition detection and deduplication
+     * @return Zobrist key of the board and side to move
+     */
+    public long getPositionHash() {
+        return board.getHash();
     }
     
     public boolean isGameOver() {
@@ -198,8 +343,9 @@ public class ChessGame {
      */
     public void resetGame() {
         board = new ChessBoard();
-        currentPlayer = Piece.Color.WHITE;
         gameOver = false;
         gameResult = "";
+        startFen = Fen.START_POSITION;
+        moveCount = 0;
     }
 }
\ No newline at end of file
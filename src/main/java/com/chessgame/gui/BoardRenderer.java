@@ -0,0 +1,126 @@
+package com.chessgame.gui;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Bitboards;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Draws a board into an offscreen image, one square at a time. The renderer
+ * remembers what each square shows and only redraws squares whose piece or
+ * highlight changed, so a move costs two or three squares instead of the whole board.
+ * Not thread-safe; use it from one thread, normally the EDT.
+ */
+final class BoardRenderer {
+    static final Color LIGHT_SQUARE = new Color(240, 217, 181);
+    static final Color DARK_SQUARE = new Color(181, 136, 99);
+    static final Color SELECTED_SQUARE = new Color(255, 255, 0, 128);
+    static final Color VALID_MOVE = new Color(0, 255, 0, 128);
+
+    private final int squareSize;
+    private final PieceGlyphs glyphs;
+    private final BufferedImage image;
+    private final int[] pieces = new int[64];
+    private int selected = -1;
+    private long targets;
+    // Every square starts out dirty so the first render draws the whole board
+    private long dirty = -1L;
+
+    BoardRenderer(int squareSize) {
+        this.squareSize = squareSize;
+        glyphs = PieceGlyphs.forSquareSize(squareSize);
+        image = new BufferedImage(8 * squareSize, 8 * squareSize, BufferedImage.TYPE_INT_RGB);
+        Arrays.fill(pieces, BitboardPosition.NO_PIECE);
+    }
+
+    int getSquareSize() {
+        return squareSize;
+    }
+
+    /**
+     * Show the pieces of a position
+     * @param position The position; it is only read
+     * @return Bitboard of the squares whose piece changed
+     */
+    long setPosition(BitboardPosition position) {
+        long changed = 0L;
+        for (int square = 0; square < 64; square++) {
+            int piece = position.getPieceAt(square);
+            if (piece != pieces[square]) {
+                pieces[square] = piece;
+                changed |= Bitboards.bit(square);
+            }
+        }
+        dirty |= changed;
+        return changed;
+    }
+
+    /**
+     * Highlight a selected square and its move targets
+     * @param selectedSquare The selected square, or -1 for none
+     * @param targetSquares Bitboard of squares to mark as valid moves
+     * @return Bitboard of the squares whose highlight changed
+     */
+    long setHighlights(int selectedSquare, long targetSquares) {
+        long changed = targets ^ targetSquares;
+        if (selectedSquare != selected) {
+            if (selected >= 0) {
+                changed |= Bitboards.bit(selected);
+            }
+            if (selectedSquare >= 0) {
+                changed |= Bitboards.bit(selectedSquare);
+            }
+        }
+        selected = selectedSquare;
+        targets = targetSquares;
+        dirty |= changed;
+        return changed;
+    }
+
+    /**
+     * Bring the image up to date by drawing the squares that changed since the last call
+     * @return The board image, 8 squares wide and high
+     */
+    BufferedImage render() {
+        if (dirty == 0L) {
+            return image;
+        }
+        Graphics2D g = image.createGraphics();
+        try {
+            while (dirty != 0L) {
+                int square = Bitboards.lowestSquare(dirty);
+                dirty &= dirty - 1;
+                drawSquare(g, square);
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private void drawSquare(Graphics2D g, int square) {
+        int row = Bitboards.rowOf(square);
+        int col = Bitboards.colOf(square);
+        int x = col * squareSize;
+        int y = row * squareSize;
+        g.setColor((row + col) % 2 == 0 ? LIGHT_SQUARE : DARK_SQUARE);
+        g.fillRect(x, y, squareSize, squareSize);
+        if (square == selected) {
+            g.setColor(SELECTED_SQUARE);
+            g.fillRect(x, y, squareSize, squareSize);
+        } else if ((targets & Bitboards.bit(square)) != 0) {
+            g.setColor(VALID_MOVE);
+            g.fillRect(x, y, squareSize, squareSize);
+        }
+        if (pieces[square] != BitboardPosition.NO_PIECE) {
+            g.drawImage(glyphs.get(pieces[square]), x, y, null);
+        }
+        if (squareSize >= 24) {
+            g.setColor(Color.BLACK);
+            g.drawRect(x, y, squareSize - 1, squareSize - 1);
+        }
+    }
+}
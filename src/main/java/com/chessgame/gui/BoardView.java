@@ -0,0 +1,112 @@
+package com.chessgame.gui;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Bitboards;
+
+import javax.swing.BorderFactory;
+import javax.swing.JComponent;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * A whole chess board as a single component. Squares are drawn into an offscreen
+ * image by a {@link BoardRenderer}, and a change only repaints the squares it
+ * touched; painting the component is one image copy of the area Swing asks for.
+ */
+class BoardView extends JComponent {
+    /**
+     * Receives clicks on board squares
+     */
+    interface SquareListener {
+        void squareClicked(int row, int col);
+    }
+
+    private static final int MARGIN = 10;
+
+    private final BoardRenderer renderer;
+    private SquareListener squareListener;
+
+    /**
+     * Create a board view
+     * @param squareSize Width and height of a square in pixels
+     */
+    BoardView(int squareSize) {
+        renderer = new BoardRenderer(squareSize);
+        setBorder(BorderFactory.createEmptyBorder(MARGIN, MARGIN, MARGIN, MARGIN));
+        setOpaque(true);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int square = squareAt(e.getX(), e.getY());
+                if (square >= 0 && squareListener != null) {
+                    squareListener.squareClicked(Bitboards.rowOf(square), Bitboards.colOf(square));
+                }
+            }
+        });
+    }
+
+    void setSquareListener(SquareListener squareListener) {
+        this.squareListener = squareListener;
+    }
+
+    /**
+     * Show the pieces of a position, repainting the squares that changed
+     * @param position The position; it is only read
+     */
+    void setPosition(BitboardPosition position) {
+        repaintSquares(renderer.setPosition(position));
+    }
+
+    /**
+     * Highlight a selected square and the squares its piece can move to
+     * @param selectedSquare The selected square, or -1 for none
+     * @param targets Bitboard of valid move destinations
+     */
+    void setHighlights(int selectedSquare, long targets) {
+        repaintSquares(renderer.setHighlights(selectedSquare, targets));
+    }
+
+    void clearHighlights() {
+        setHighlights(-1, 0L);
+    }
+
+    private void repaintSquares(long squares) {
+        Insets insets = getInsets();
+        int size = renderer.getSquareSize();
+        while (squares != 0L) {
+            int square = Bitboards.lowestSquare(squares);
+            squares &= squares - 1;
+            repaint(insets.left + Bitboards.colOf(square) * size, insets.top + Bitboards.rowOf(square) * size,
+                    size, size);
+        }
+    }
+
+    private int squareAt(int x, int y) {
+        Insets insets = getInsets();
+        int size = renderer.getSquareSize();
+        int col = Math.floorDiv(x - insets.left, size);
+        int row = Math.floorDiv(y - insets.top, size);
+        if (row < 0 || row > 7 || col < 0 || col > 7) {
+            return -1;
+        }
+        return Bitboards.square(row, col);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        Insets insets = getInsets();
+        int size = 8 * renderer.getSquareSize();
+        return new Dimension(size + insets.left + insets.right, size + insets.top + insets.bottom);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        Insets insets = getInsets();
+        g.drawImage(renderer.render(), insets.left, insets.top, null);
+    }
+}
@@ -1,38 +1,65 @@
 package com.chessgame.gui;
 
 import com.chessgame.game.ChessGame;
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Fen;
 import com.chessgame.board.Position;
+import com.chessgame.book.OpeningBook;
+import com.chessgame.book.PolyglotKeys;
+import com.chessgame.engine.Engine;
+import com.chessgame.engine.SearchLimits;
+import com.chessgame.engine.SearchResult;
 import com.chessgame.pieces.Piece;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * GUI for the chess game using Java Swing
+ * GUI for the chess game using Java Swing.
+ * After every move the new position's legal moves, check status and book moves are
+ * computed on a background thread from a copy of the position, so clicks never
+ * wait for move generation on the Event Dispatch Thread.
  */
 public class ChessGUI extends JFrame {
     private ChessGame game;
-    private JButton[][] boardButtons;
+    private BoardView boardView;
     private Position selectedPosition;
     private JLabel statusLabel;
     private JLabel currentPlayerLabel;
-    private boolean useUnicodeSymbols;
+    private JLabel bookLabel;
+    private OpeningBook openingBook;
+    private Path openingBookFile;
+    private PolyglotKeys bookKeys = PolyglotKeys.getDefault();
+    private Engine engine;
+    private boolean computerOpponent;
+    private boolean computerThinking;
+    private int gameGeneration;
+    private final ExecutorService analysisExecutor;
+    private PositionAnalysis analysis;
+    private int positionVersion;
     
-    // Colors for the chess board
-    private static final Color LIGHT_SQUARE = new Color(240, 217, 181);
-    private static final Color DARK_SQUARE = new Color(181, 136, 99);
-    private static final Color SELECTED_SQUARE = new Color(255, 255, 0, 128);
-    private static final Color VALID_MOVE = new Color(0, 255, 0, 128);
+    // Size of a board square in pixels
+    private static final int SQUARE_SIZE = 80;
+    
+    // Thinking time per computer move
+    private static final long COMPUTER_MOVE_MILLIS = 100;
     
     public ChessGUI() {
         game = new ChessGame();
+        engine = new Engine();
         selectedPosition = null;
-        useUnicodeSymbols = testUnicodeSupport();
+        analysisExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "position-analysis");
+            thread.setDaemon(true);
+            return thread;
+        });
         initializeGUI();
-        updateBoard();
+        positionChanged();
     }
     
     private void initializeGUI() {
@@ -40,9 +67,10 @@ public class ChessGUI extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
         
-        // Create the chess board panel
-        JPanel boardPanel = createBoardPanel();
-        add(boardPanel, BorderLayout.CENTER);
+        // Create the chess board, painted as a single component
+        boardView = new BoardView(SQUARE_SIZE);
+        boardView.setSquareListener(this::handleSquareClick);
+        add(boardView, BorderLayout.CENTER);
         
         // Create the status panel
         JPanel statusPanel = createStatusPanel();
@@ -58,47 +86,6 @@ public class ChessGUI extends JFrame {
         setLocationRelativeTo(null);
     }
     
-    private JPanel createBoardPanel() {
-        JPanel boardPanel = new JPanel(new GridLayout(8, 8));
-        boardPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-        
-        boardButtons = new JButton[8][8];
-        
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                JButton button = new JButton();
-                button.setPreferredSize(new Dimension(80, 80));
-                // Try multiple fonts for better Unicode chess symbol support
-                Font chessFont = getChessFont();
-                button.setFont(chessFont);
-                button.setFocusPainted(false);
-                button.setBorder(BorderFactory.createLineBorder(Color.BLACK, 1));
-                
-                // Set square color
-                if ((row + col) % 2 == 0) {
-                    button.setBackground(LIGHT_SQUARE);
-                } else {
-                    button.setBackground(DARK_SQUARE);
-                }
-                
-                // Add click listener
-                final int finalRow = row;
-                final int finalCol = col;
-                button.addActionListener(new ActionListener() {
-                    @Override
-                    public void actionPerformed(ActionEvent e) {
-                        handleSquareClick(finalRow, finalCol);
-                    }
-                });
-                
-                boardButtons[row][col] = button;
-                boardPanel.add(button);
-            }
-        }
-        
-        return boardPanel;
-    }
-    
     private JPanel createStatusPanel() {
         JPanel statusPanel = new JPanel(new BorderLayout());
         statusPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
@@ -109,7 +96,11 @@ public class ChessGUI extends JFrame {
         statusLabel = new JLabel("Game in progress", JLabel.CENTER);
         statusLabel.setFont(new Font("Arial", Font.PLAIN, 14));
         
+        bookLabel = new JLabel(" ", JLabel.CENTER);
+        bookLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        
         statusPanel.add(currentPlayerLabel, BorderLayout.NORTH);
+        statusPanel.add(bookLabel, BorderLayout.CENTER);
         statusPanel.add(statusLabel, BorderLayout.SOUTH);
         
         return statusPanel;
@@ -123,25 +114,129 @@ public class ChessGUI extends JFrame {
         JMenuItem newGameItem = new JMenuItem("New Game");
         newGameItem.addActionListener(e -> {
             game.resetGame();
+            engine.clear();
+            gameGeneration++;
+            computerThinking = false;
             selectedPosition = null;
-            updateBoard();
-            updateStatus();
+            positionChanged();
+        });
+        
+        JCheckBoxMenuItem computerItem = new JCheckBoxMenuItem("Play Against Computer (Black)");
+        computerItem.addActionListener(e -> {
+            computerOpponent = computerItem.isSelected();
+            startComputerMove();
         });
         
         JMenuItem exitItem = new JMenuItem("Exit");
         exitItem.addActionListener(e -> System.exit(0));
         
         gameMenu.add(newGameItem);
+        gameMenu.add(computerItem);
         gameMenu.addSeparator();
         gameMenu.add(exitItem);
         
+        JMenu bookMenu = new JMenu("Book");
+        
+        JMenuItem openBookItem = new JMenuItem("Open Opening Book...");
+        openBookItem.addActionListener(e -> openBook());
+        
+        JMenuItem keyTableItem = new JMenuItem("Load Key Table...");
+        keyTableItem.addActionListener(e -> loadKeyTable());
+        
+        JMenuItem closeBookItem = new JMenuItem("Close Opening Book");
+        closeBookItem.addActionListener(e -> {
+            openingBookFile = null;
+            setOpeningBook(null);
+        });
+        
+        bookMenu.add(openBookItem);
+        bookMenu.add(keyTableItem);
+        bookMenu.add(closeBookItem);
+        
         menuBar.add(gameMenu);
+        menuBar.add(bookMenu);
         
         return menuBar;
     }
     
+    /**
+     * Let the user pick a Polyglot .bin book; the computer plays from it and its
+     * moves for the current position are shown under the board
+     */
+    private void openBook() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        openBook(chooser.getSelectedFile().toPath());
+    }
+    
+    /**
+     * Open a book with the current key table, warning if it has no moves for the
+     * start position, which usually means it was hashed with a different table
+     */
+    private void openBook(Path file) {
+        OpeningBook book;
+        try {
+            book = new OpeningBook(file, bookKeys);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not open book: " + e.getMessage(),
+                    "Opening Book", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        openingBookFile = file;
+        setOpeningBook(book);
+        
+        BitboardPosition start = new BitboardPosition();
+        Fen.load(Fen.START_POSITION, start);
+        if (book.size() > 0 && book.getMoves(start).isEmpty()) {
+            JOptionPane.showMessageDialog(this, "The book has no moves for the start position.\n"
+                    + "Books made by other Polyglot tools need their key table (random64.txt);\n"
+                    + "load it with Book > Load Key Table...", "Opening Book", JOptionPane.WARNING_MESSAGE);
+        }
+    }
+    
+    /**
+     * Let the user pick the Polyglot key table books are hashed with, and reopen
+     * the current book with it
+     */
+    private void loadKeyTable() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Load Polyglot Key Table");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            bookKeys = PolyglotKeys.load(chooser.getSelectedFile().toPath());
+        } catch (IOException | IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, "Could not load key table: " + e.getMessage(),
+                    "Opening Book", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (openingBookFile != null) {
+            openBook(openingBookFile);
+        }
+    }
+    
+    private void setOpeningBook(OpeningBook book) {
+        if (openingBook != null) {
+            try {
+                openingBook.close();
+            } catch (IOException e) {
+                // Nothing to do; the mapping is released by the garbage collector
+            }
+        }
+        openingBook = book;
+        engine.setOpeningBook(book);
+        analysePosition();
+    }
+    
     private void handleSquareClick(int row, int col) {
-        Position clickedPosition = new Position(row, col);
+        if (computerThinking) {
+            return; // Wait for the computer's move
+        }
+        
+        Position clickedPosition = Position.of(row, col);
         
         if (selectedPosition == null) {
             // First click - select a piece
@@ -160,129 +255,121 @@ public class ChessGUI extends JFrame {
                 // Attempt to move
                 boolean moveSuccessful = game.makeMove(selectedPosition, clickedPosition);
                 selectedPosition = null;
-                updateBoard();
-                updateStatus();
                 
                 if (!moveSuccessful) {
+                    updateBoard();
                     statusLabel.setText("Invalid move!");
+                } else {
+                    positionChanged();
+                    startComputerMove();
                 }
             }
         }
     }
     
-    private void highlightValidMoves() {
-        if (selectedPosition == null) return;
-        
-        Piece selectedPiece = game.getBoard().getPiece(selectedPosition);
-        if (selectedPiece == null) return;
-        
-        // Reset board colors
-        updateBoard();
+    /**
+     * Let the engine pick Black's move on a background thread and play it on the EDT
+     */
+    private void startComputerMove() {
+        if (!computerOpponent || computerThinking || game.isGameOver()
+                || game.getCurrentPlayer() != Piece.Color.BLACK) {
+            return;
+        }
         
-        // Highlight selected square
-        boardButtons[selectedPosition.getRow()][selectedPosition.getCol()].setBackground(SELECTED_SQUARE);
+        computerThinking = true;
+        statusLabel.setText("Computer is thinking...");
+        final int generation = gameGeneration;
         
-        // Highlight valid moves
-        List<Position> validMoves = selectedPiece.getValidMoves(game.getBoard().getBoardArray());
-        for (Position move : validMoves) {
-            if (game.isValidMove(selectedPosition, move)) {
-                boardButtons[move.getRow()][move.getCol()].setBackground(VALID_MOVE);
+        new SwingWorker<SearchResult, Void>() {
+            @Override
+            protected SearchResult doInBackground() {
+                return engine.findBestMove(game, SearchLimits.ofTime(COMPUTER_MOVE_MILLIS));
             }
-        }
-    }
-    
-    private void updateBoard() {
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                JButton button = boardButtons[row][col];
-                Piece piece = game.getBoard().getPiece(row, col);
-                
-                // Set piece symbol
-                if (piece != null) {
-                    String symbol = useUnicodeSymbols ? piece.getSymbol() : piece.getFallbackSymbol();
-                    button.setText(symbol);
-                } else {
-                    button.setText("");
+            
+            @Override
+            protected void done() {
+                if (generation != gameGeneration) {
+                    return; // A new game was started while thinking
                 }
-                
-                // Reset square color
-                if ((row + col) % 2 == 0) {
-                    button.setBackground(LIGHT_SQUARE);
-                } else {
-                    button.setBackground(DARK_SQUARE);
+                computerThinking = false;
+                try {
+                    Engine.playMove(game, get().getBestMove());
+                } catch (InterruptedException | ExecutionException e) {
+                    statusLabel.setText("Computer failed to move: " + e.getMessage());
+                    return;
                 }
+                selectedPosition = null;
+                positionChanged();
             }
-        }
+        }.execute();
     }
     
-    private void updateStatus() {
-        currentPlayerLabel.setText("Current Player: " + game.getCurrentPlayer());
+    /**
+     * Highlight the selected piece and, once the position's analysis is ready, its
+     * valid moves, including castling and en passant
+     */
+    private void highlightValidMoves() {
+        if (selectedPosition == null) return;
         
-        if (game.isGameOver()) {
-            statusLabel.setText(game.getGameResult());
-            currentPlayerLabel.setText("Game Over");
-        } else if (game.isKingInCheck(game.getCurrentPlayer())) {
-            statusLabel.setText(game.getCurrentPlayer() + " is in check!");
-        } else {
-            statusLabel.setText("Game in progress");
-        }
+        long targets = analysis != null ? analysis.getTargets(selectedPosition.getSquare()) : 0L;
+        boardView.setHighlights(selectedPosition.getSquare(), targets);
     }
     
     /**
-     * Test if the system supports Unicode chess symbols
+     * Show a new position and start analysing it in the background
      */
-    private boolean testUnicodeSupport() {
-        try {
-            // Create a test font to check Unicode support
-            Font testFont = new Font("Segoe UI Symbol", Font.PLAIN, 36);
-            String testSymbol = "♔";
-            
-            // Check if the font can display the chess symbol
-            if (testFont.canDisplay(testSymbol.charAt(0))) {
-                return true;
-            }
-            
-            // Try alternative fonts
-            String[] testFonts = {"Arial Unicode MS", "Lucida Sans Unicode", "DejaVu Sans"};
-            for (String fontName : testFonts) {
-                testFont = new Font(fontName, Font.PLAIN, 36);
-                if (testFont.canDisplay(testSymbol.charAt(0))) {
-                    return true;
-                }
-            }
-            
-            return false;
-        } catch (Exception e) {
-            return false;
+    private void positionChanged() {
+        positionVersion++;
+        analysis = null;
+        updateBoard();
+        analysePosition();
+    }
+    
+    /**
+     * Compute the current position's legal moves and status on the analysis thread
+     * and publish them to the EDT; results for a position no longer shown are dropped
+     */
+    private void analysePosition() {
+        final int version = positionVersion;
+        final BitboardPosition position = new BitboardPosition(game.getBoard().getBitboards());
+        final OpeningBook book = openingBook;
+        analysisExecutor.execute(() -> {
+            PositionAnalysis result = PositionAnalysis.analyse(version, position, book);
+            SwingUtilities.invokeLater(() -> publishAnalysis(result));
+        });
+    }
+    
+    private void publishAnalysis(PositionAnalysis result) {
+        if (result.getVersion() != positionVersion) {
+            return; // Another move was made while analysing
         }
+        analysis = result;
+        updateStatus();
+        highlightValidMoves();
     }
     
     /**
-     * Get the best available font for displaying chess symbols
+     * Show the current position without highlights; only squares that changed are repainted
      */
-    private Font getChessFont() {
-        // List of fonts that typically support Unicode chess symbols
-        String[] fontNames = {
-            "Segoe UI Symbol",    // Windows
-            "Apple Symbols",      // macOS
-            "Noto Color Emoji",   // Linux
-            "DejaVu Sans",        // Cross-platform
-            "Arial Unicode MS",   // Windows
-            "Lucida Sans Unicode", // Windows
-            "SansSerif"           // Java fallback
-        };
+    private void updateBoard() {
+        boardView.clearHighlights();
+        boardView.setPosition(game.getBoard().getBitboards());
+    }
+    
+    private void updateStatus() {
+        currentPlayerLabel.setText("Current Player: " + game.getCurrentPlayer());
         
-        // Try each font and return the first available one
-        for (String fontName : fontNames) {
-            Font font = new Font(fontName, Font.PLAIN, useUnicodeSymbols ? 36 : 20);
-            if (font.getFamily().equals(fontName)) {
-                return font;
-            }
+        if (game.isGameOver()) {
+            statusLabel.setText(game.getGameResult());
+            currentPlayerLabel.setText("Game Over");
+        } else if (computerThinking) {
+            statusLabel.setText("Computer is thinking...");
+        } else if (analysis != null && analysis.isInCheck()) {
+            statusLabel.setText(game.getCurrentPlayer() + " is in check!");
+        } else {
+            statusLabel.setText("Game in progress");
         }
-        
-        // Ultimate fallback - use default font with appropriate size
-        int fontSize = useUnicodeSymbols ? 36 : 20;
-        return new Font(Font.SANS_SERIF, Font.BOLD, fontSize);
+        bookLabel.setText(analysis != null ? analysis.getBookText() : " ");
     }
     
     public static void main(String[] args) {
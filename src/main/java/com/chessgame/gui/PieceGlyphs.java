@@ -0,0 +1,137 @@
+package com.chessgame.gui;
+
+import com.chessgame.board.BitboardPosition;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Piece symbols pre-rendered once per square size into transparent images, so
+ * painting a piece is one image copy instead of laying out text. Instances are
+ * shared by every board of the same size and never change after creation.
+ */
+final class PieceGlyphs {
+    // Indexed by piece code: white pawn to king, then black pawn to king
+    private static final String UNICODE_SYMBOLS = "♙♘♗♖♕♔♟♞♝♜♛♚";
+    private static final String LETTERS = "PNBRQK";
+
+    private static final ConcurrentHashMap<Integer, PieceGlyphs> CACHE = new ConcurrentHashMap<>();
+    private static final boolean UNICODE = testUnicodeSupport();
+
+    private final BufferedImage[] images = new BufferedImage[12];
+
+    private PieceGlyphs(int squareSize) {
+        Font font = getChessFont(squareSize);
+        for (int code = 0; code < images.length; code++) {
+            images[code] = render(symbolOf(code), font, squareSize);
+        }
+    }
+
+    /**
+     * Get the glyphs for a square size, rendering them the first time the size is used
+     * @param squareSize Width and height of a square in pixels
+     * @return The shared glyphs
+     */
+    static PieceGlyphs forSquareSize(int squareSize) {
+        return CACHE.computeIfAbsent(squareSize, PieceGlyphs::new);
+    }
+
+    /**
+     * Get the image of a piece
+     * @param piece Piece code as returned by BitboardPosition.getPieceAt
+     * @return A square image with a transparent background
+     */
+    BufferedImage get(int piece) {
+        return images[piece];
+    }
+
+    private static String symbolOf(int code) {
+        if (UNICODE) {
+            return UNICODE_SYMBOLS.substring(code, code + 1);
+        }
+        String color = BitboardPosition.colorOf(code) == BitboardPosition.WHITE ? "W" : "B";
+        return color + LETTERS.charAt(BitboardPosition.typeOf(code));
+    }
+
+    private static BufferedImage render(String symbol, Font font, int squareSize) {
+        BufferedImage image = new BufferedImage(squareSize, squareSize, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setFont(font);
+            g.setColor(Color.BLACK);
+            FontMetrics metrics = g.getFontMetrics();
+            int x = (squareSize - metrics.stringWidth(symbol)) / 2;
+            int y = (squareSize - metrics.getHeight()) / 2 + metrics.getAscent();
+            g.drawString(symbol, x, y);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Test if the system supports Unicode chess symbols
+     */
+    private static boolean testUnicodeSupport() {
+        try {
+            // Create a test font to check Unicode support
+            Font testFont = new Font("Segoe UI Symbol", Font.PLAIN, 36);
+            String testSymbol = "♔";
+
+            // Check if the font can display the chess symbol
+            if (testFont.canDisplay(testSymbol.charAt(0))) {
+                return true;
+            }
+
+            // Try alternative fonts
+            String[] testFonts = {"Arial Unicode MS", "Lucida Sans Unicode", "DejaVu Sans"};
+            for (String fontName : testFonts) {
+                testFont = new Font(fontName, Font.PLAIN, 36);
+                if (testFont.canDisplay(testSymbol.charAt(0))) {
+                    return true;
+                }
+            }
+
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Get the best available font for displaying chess symbols, sized for a square
+     */
+    private static Font getChessFont(int squareSize) {
+        // Sizes that fitted the original 80 pixel squares: 36 for symbols, 20 for letters
+        int fontSize = Math.max(6, UNICODE ? squareSize * 36 / 80 : squareSize * 20 / 80);
+
+        // List of fonts that typically support Unicode chess symbols
+        String[] fontNames = {
+            "Segoe UI Symbol",    // Windows
+            "Apple Symbols",      // macOS
+            "Noto Color Emoji",   // Linux
+            "DejaVu Sans",        // Cross-platform
+            "Arial Unicode MS",   // Windows
+            "Lucida Sans Unicode", // Windows
+            "SansSerif"           // Java fallback
+        };
+
+        // Try each font and return the first available one
+        for (String fontName : fontNames) {
+            Font font = new Font(fontName, Font.PLAIN, fontSize);
+            if (font.getFamily().equals(fontName)) {
+                return font;
+            }
+        }
+
+        // Ultimate fallback - use default font with appropriate size
+        return new Font(Font.SANS_SERIF, Font.BOLD, fontSize);
+    }
+}
@@ -0,0 +1,90 @@
+package com.chessgame.gui;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Bitboards;
+import com.chessgame.board.Move;
+import com.chessgame.board.MoveGenerator;
+import com.chessgame.board.MoveList;
+import com.chessgame.board.San;
+import com.chessgame.book.BookMove;
+import com.chessgame.book.OpeningBook;
+
+import java.util.List;
+
+/**
+ * Everything the GUI shows about a position that takes move generation: the legal
+ * destinations of every piece of the side to move, whether it is in check and the
+ * opening book line. Computed once per position on a background thread and
+ * read on the EDT, so selecting a piece is a lookup.
+ */
+final class PositionAnalysis {
+    private final int version;
+    private final long[] targets = new long[64];
+    private final boolean inCheck;
+    private final String bookText;
+
+    private PositionAnalysis(int version, BitboardPosition position, OpeningBook book) {
+        this.version = version;
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegal(position, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            targets[Move.from(move)] |= Bitboards.bit(Move.to(move));
+        }
+        inCheck = position.isInCheck(position.getSideToMove());
+        bookText = book == null ? " " : describeBookMoves(position, book, moves);
+    }
+
+    /**
+     * Analyse a position
+     * @param version Number identifying the position among those the GUI has shown
+     * @param position A private copy of the position; SAN needs to play moves on it
+     * @param book Opening book to list moves from, or null
+     * @return The analysis
+     */
+    static PositionAnalysis analyse(int version, BitboardPosition position, OpeningBook book) {
+        return new PositionAnalysis(version, position, book);
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the legal destinations of the piece on a square
+     * @param square The square
+     * @return Bitboard of destinations, empty if the square holds no piece of the side to move
+     */
+    long getTargets(int square) {
+        return targets[square];
+    }
+
+    boolean isInCheck() {
+        return inCheck;
+    }
+
+    String getBookText() {
+        return bookText;
+    }
+
+    /**
+     * Show the book moves for the position with their share of the weight
+     */
+    private static String describeBookMoves(BitboardPosition position, OpeningBook book, MoveList scratch) {
+        List<BookMove> moves = book.getMoves(position);
+        if (moves.isEmpty()) {
+            return "Book: out of book";
+        }
+        long total = 0;
+        for (BookMove move : moves) {
+            total += move.getWeight();
+        }
+        StringBuilder text = new StringBuilder("Book:");
+        for (int i = 0; i < moves.size() && i < 6; i++) {
+            BookMove move = moves.get(i);
+            text.append(' ').append(San.toSan(position, move.getMove(), scratch))
+                    .append(" (").append(total == 0 ? 0 : 100 * move.getWeight() / total).append("%)");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,333 @@
+package com.chessgame.gui;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Fen;
+import com.chessgame.board.Move;
+import com.chessgame.board.MoveGenerator;
+import com.chessgame.board.MoveList;
+
+import javax.swing.JComponent;
+import javax.swing.JFrame;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Shows many live games at once as a grid of small boards in one component.
+ * Any thread can submit moves, positions and titles; they are queued and applied
+ * on the EDT once per frame, so a burst of updates costs one repaint per changed
+ * board rather than one per update. Every board keeps its own offscreen image and
+ * redraws only the squares that changed; piece glyphs are shared by all boards.
+ *
+ * Usage (demo with random games):
+ *   java com.chessgame.gui.SpectatorView [boards] [moves per second] [square size]
+ */
+public class SpectatorView extends JComponent {
+    private static final int FRAME_MILLIS = 16;
+    // Most updates applied in one frame, so a flood of updates cannot hold the EDT
+    private static final int MAX_UPDATES_PER_FRAME = 10000;
+    private static final int GAP = 6;
+    private static final int TITLE_HEIGHT = 14;
+    private static final Font TITLE_FONT = new Font("Arial", Font.PLAIN, 11);
+
+    /**
+     * A queued change to one board: a move, a new position or a new title
+     */
+    private static final class Update {
+        final int board;
+        final int move;
+        final String fen;
+        final String title;
+
+        Update(int board, int move, String fen, String title) {
+            this.board = board;
+            this.move = move;
+            this.fen = fen;
+            this.title = title;
+        }
+    }
+
+    private final int columns;
+    private final int squareSize;
+    private final BitboardPosition[] positions;
+    private final BoardRenderer[] renderers;
+    private final String[] titles;
+    private final ConcurrentLinkedQueue<Update> updates = new ConcurrentLinkedQueue<>();
+    private final Timer frameTimer;
+    private final MoveList legalMoves = new MoveList();
+    private long appliedUpdates;
+    private long droppedUpdates;
+    private long frames;
+
+    /**
+     * Create a grid of boards, all showing the start position
+     * @param boards Number of boards
+     * @param columns Boards per row
+     * @param squareSize Width and height of a square in pixels
+     */
+    public SpectatorView(int boards, int columns, int squareSize) {
+        if (boards < 1 || columns < 1 || squareSize < 1) {
+            throw new IllegalArgumentException("Boards, columns and square size must be positive");
+        }
+        this.columns = columns;
+        this.squareSize = squareSize;
+        positions = new BitboardPosition[boards];
+        renderers = new BoardRenderer[boards];
+        titles = new String[boards];
+        for (int i = 0; i < boards; i++) {
+            positions[i] = new BitboardPosition();
+            Fen.load(Fen.START_POSITION, positions[i]);
+            renderers[i] = new BoardRenderer(squareSize);
+            renderers[i].setPosition(positions[i]);
+            titles[i] = "Game " + (i + 1);
+        }
+        setOpaque(true);
+        setBackground(Color.DARK_GRAY);
+        frameTimer = new Timer(FRAME_MILLIS, e -> applyUpdates());
+        frameTimer.setCoalesce(true);
+    }
+
+    public int getBoardCount() {
+        return positions.length;
+    }
+
+    /**
+     * Queue a move; safe to call from any thread
+     * @param board Board index
+     * @param move Packed move, legal in the board's position once earlier updates are applied;
+     *             an illegal or stale move is dropped
+     */
+    public void submitMove(int board, int move) {
+        updates.add(new Update(board, move, null, null));
+    }
+
+    /**
+     * Queue a new position, e.g. when a game starts; safe to call from any thread
+     * @param board Board index
+     * @param fen The position
+     */
+    public void submitPosition(int board, String fen) {
+        updates.add(new Update(board, 0, fen, null));
+    }
+
+    /**
+     * Queue a new caption for a board; safe to call from any thread
+     * @param board Board index
+     * @param title Text shown under the board
+     */
+    public void submitTitle(int board, String title) {
+        updates.add(new Update(board, 0, null, title));
+    }
+
+    /**
+     * Get the number of updates applied so far; read it on the EDT
+     */
+    public long getAppliedUpdates() {
+        return appliedUpdates;
+    }
+
+    /**
+     * Get the number of updates dropped because their board index, FEN or move was invalid; read it on the EDT
+     */
+    public long getDroppedUpdates() {
+        return droppedUpdates;
+    }
+
+    /**
+     * Get the number of frames in which updates were applied; read it on the EDT
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        frameTimer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        frameTimer.stop();
+        super.removeNotify();
+    }
+
+    /**
+     * Apply queued updates, at most MAX_UPDATES_PER_FRAME of them, then repaint each
+     * board that changed once. Any updates left over wait for the next frame.
+     * Invalid updates are dropped so one bad submitter cannot stop the frame loop.
+     */
+    private void applyUpdates() {
+        if (updates.isEmpty()) {
+            return;
+        }
+        boolean[] changed = new boolean[positions.length];
+        Update update;
+        for (int applied = 0; applied < MAX_UPDATES_PER_FRAME && (update = updates.poll()) != null; applied++) {
+            if (apply(update)) {
+                changed[update.board] = true;
+                appliedUpdates++;
+            } else {
+                droppedUpdates++;
+            }
+        }
+        for (int board = 0; board < changed.length; board++) {
+            if (changed[board]) {
+                renderers[board].setPosition(positions[board]);
+                repaint(tileBounds(board));
+            }
+        }
+        frames++;
+    }
+
+    /**
+     * Apply one update if it is valid for its board
+     * @return true if the board changed
+     */
+    private boolean apply(Update update) {
+        int board = update.board;
+        if (board < 0 || board >= positions.length) {
+            return false;
+        }
+        if (update.title != null) {
+            titles[board] = update.title;
+        } else if (update.fen != null) {
+            // Load into a new position so a bad FEN leaves the board as it was
+            BitboardPosition position = new BitboardPosition();
+            try {
+                Fen.load(update.fen, position);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+            positions[board] = position;
+        } else {
+            BitboardPosition position = positions[board];
+            MoveGenerator.generateLegal(position, Move.from(update.move), legalMoves);
+            if (!legalMoves.contains(update.move)) {
+                return false;
+            }
+            position.makeMove(update.move);
+        }
+        return true;
+    }
+
+    private Rectangle tileBounds(int board) {
+        int boardSize = 8 * squareSize;
+        int x = GAP + (board % columns) * (boardSize + GAP);
+        int y = GAP + (board / columns) * (boardSize + TITLE_HEIGHT + GAP);
+        return new Rectangle(x, y, boardSize, boardSize + TITLE_HEIGHT);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int rows = (positions.length + columns - 1) / columns;
+        int boardSize = 8 * squareSize;
+        return new Dimension(GAP + columns * (boardSize + GAP), GAP + rows * (boardSize + TITLE_HEIGHT + GAP));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        g.setFont(TITLE_FONT);
+        for (int board = 0; board < positions.length; board++) {
+            Rectangle tile = tileBounds(board);
+            if (!tile.intersects(clip)) {
+                continue;
+            }
+            g.drawImage(renderers[board].render(), tile.x, tile.y, null);
+            g.setColor(Color.WHITE);
+            g.drawString(titles[board], tile.x, tile.y + 8 * squareSize + TITLE_HEIGHT - 3);
+        }
+    }
+
+    public static void main(String[] args) {
+        int boards = args.length > 0 ? Integer.parseInt(args[0]) : 120;
+        int movesPerSecond = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int squareSize = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+        SwingUtilities.invokeLater(() -> {
+            int columns = Math.max(1, (int) Math.ceil(Math.sqrt(boards * 1.5)));
+            SpectatorView view = new SpectatorView(boards, columns, squareSize);
+            JFrame frame = new JFrame("Spectator View");
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            frame.add(new JScrollPane(view));
+            frame.pack();
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+
+            Thread feed = new Thread(() -> playRandomGames(view, movesPerSecond), "spectator-feed");
+            feed.setDaemon(true);
+            feed.start();
+
+            Timer stats = new Timer(1000, new ActionListener() {
+                private long lastUpdates;
+                private long lastFrames;
+
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    frame.setTitle(String.format("Spectator View - %d boards, %d updates/s in %d frames/s",
+                            boards, view.getAppliedUpdates() - lastUpdates, view.getFrames() - lastFrames));
+                    lastUpdates = view.getAppliedUpdates();
+                    lastFrames = view.getFrames();
+                }
+            });
+            stats.start();
+        });
+    }
+
+    /**
+     * Feed the view random legal moves at a steady rate, restarting finished games
+     */
+    private static void playRandomGames(SpectatorView view, int movesPerSecond) {
+        int boards = view.getBoardCount();
+        BitboardPosition[] games = new BitboardPosition[boards];
+        int[] gameNumbers = new int[boards];
+        for (int i = 0; i < boards; i++) {
+            games[i] = new BitboardPosition();
+            Fen.load(Fen.START_POSITION, games[i]);
+            gameNumbers[i] = i + 1;
+        }
+        Random random = new Random();
+        MoveList moves = new MoveList();
+        long nanosPerMove = 1000000000L / Math.max(1, movesPerSecond);
+        long next = System.nanoTime();
+        while (true) {
+            int board = random.nextInt(boards);
+            BitboardPosition game = games[board];
+            MoveGenerator.generateLegal(game, moves);
+            if (moves.size() == 0 || game.getPly() >= 300) {
+                games[board] = new BitboardPosition();
+                Fen.load(Fen.START_POSITION, games[board]);
+                gameNumbers[board] += boards;
+                view.submitPosition(board, Fen.START_POSITION);
+                view.submitTitle(board, "Game " + gameNumbers[board]);
+            } else {
+                int move = moves.get(random.nextInt(moves.size()));
+                game.makeMove(move);
+                view.submitMove(board, move);
+            }
+            next += nanosPerMove;
+            long wait = next - System.nanoTime();
+            if (wait > 1000000L) {
+                try {
+                    Thread.sleep(wait / 1000000L);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
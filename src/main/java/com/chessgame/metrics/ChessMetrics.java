@@ -0,0 +1,233 @@
+package com.chessgame.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms for the rules engine, recorded by ChessGame.
+ * Recording is off by default; turn it on with -Dchessgame.metrics=true,
+ * {@link #setEnabled(boolean)} or over JMX. While off, each instrumented call
+ * costs one volatile read. Timed calls nest: makeMove includes the isValidMove
+ * and checkGameEnd time it spends.
+ */
+public final class ChessMetrics {
+    public static final String OBJECT_NAME = "com.chessgame:type=ChessMetrics";
+
+    public static final LatencyHistogram MAKE_MOVE = new LatencyHistogram("make_move");
+    public static final LatencyHistogram IS_VALID_MOVE = new LatencyHistogram("is_valid_move");
+    public static final LatencyHistogram IS_KING_IN_CHECK = new LatencyHistogram("is_king_in_check");
+    public static final LatencyHistogram CHECK_GAME_END = new LatencyHistogram("check_game_end");
+
+    private static final LatencyHistogram[] HISTOGRAMS = {MAKE_MOVE, IS_VALID_MOVE, IS_KING_IN_CHECK, CHECK_GAME_END};
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private static final LongAdder movesMade = new LongAdder();
+    private static final LongAdder rejectedMoves = new LongAdder();
+    private static final LongAdder movesGenerated = new LongAdder();
+    private static final LongAdder boardCopies = new LongAdder();
+
+    private static volatile boolean enabled = Boolean.getBoolean("chessgame.metrics");
+    private static boolean registered;
+
+    private ChessMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Start timing a call
+     * @return The start time to pass to {@link #stopTimer}, or a marker if recording is off
+     */
+    public static long startTimer() {
+        return enabled ? System.nanoTime() : NOT_TIMED;
+    }
+
+    /**
+     * Record the time since {@link #startTimer()}
+     * @param histogram Histogram of the timed call
+     * @param start Value returned by startTimer
+     */
+    public static void stopTimer(LatencyHistogram histogram, long start) {
+        if (start != NOT_TIMED) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    public static void countMoveMade() {
+        if (enabled) {
+            movesMade.increment();
+        }
+    }
+
+    public static void countRejectedMove() {
+        if (enabled) {
+            rejectedMoves.increment();
+        }
+    }
+
+    /**
+     * Count moves produced by move generation on behalf of a game
+     * @param moves Number of moves or destination squares generated
+     */
+    public static void countMovesGenerated(int moves) {
+        if (enabled) {
+            movesGenerated.add(moves);
+        }
+    }
+
+    /**
+     * Count a copy of a game's position, e.g. the one the engine searches
+     */
+    public static void countBoardCopy() {
+        if (enabled) {
+            boardCopies.increment();
+        }
+    }
+
+    public static long getMovesMade() {
+        return movesMade.sum();
+    }
+
+    public static long getRejectedMoves() {
+        return rejectedMoves.sum();
+    }
+
+    public static long getMovesGenerated() {
+        return movesGenerated.sum();
+    }
+
+    public static long getBoardCopies() {
+        return boardCopies.sum();
+    }
+
+    /**
+     * Clear every counter and histogram
+     */
+    public static void reset() {
+        movesMade.reset();
+        rejectedMoves.reset();
+        movesGenerated.reset();
+        boardCopies.reset();
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Get all metrics in the Prometheus text exposition format
+     * @return One line per value, latencies in nanoseconds
+     */
+    public static String render() {
+        StringBuilder sb = new StringBuilder(2048);
+        appendCounter(sb, "moves_made", getMovesMade());
+        appendCounter(sb, "rejected_moves", getRejectedMoves());
+        appendCounter(sb, "moves_generated", getMovesGenerated());
+        appendCounter(sb, "board_copies", getBoardCopies());
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            LatencySnapshot snapshot = histogram.snapshot();
+            String name = "chessgame_" + snapshot.getName() + "_nanos";
+            sb.append("# TYPE ").append(name).append(" summary\n");
+            for (double quantile : new double[] {0.5, 0.9, 0.99, 0.999}) {
+                sb.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                        .append(snapshot.getValueAtPercentile(quantile * 100)).append('\n');
+            }
+            sb.append(name).append("_max ").append(snapshot.getMaxNanos()).append('\n');
+            sb.append(name).append("_sum ").append(snapshot.getSumNanos()).append('\n');
+            sb.append(name).append("_count ").append(snapshot.getCount()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void appendCounter(StringBuilder sb, String name, long value) {
+        sb.append("# TYPE chessgame_").append(name).append("_total counter\n");
+        sb.append("chessgame_").append(name).append("_total ").append(value).append('\n');
+    }
+
+    /**
+     * Register the metrics with the platform MBean server; later calls do nothing
+     * @throws IllegalStateException if registration fails
+     */
+    public static synchronized void registerMBean() {
+        if (registered) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+            registered = true;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register " + OBJECT_NAME, e);
+        }
+    }
+
+    private static final class Bean implements ChessMetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return ChessMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean on) {
+            ChessMetrics.setEnabled(on);
+        }
+
+        @Override
+        public long getMovesMade() {
+            return ChessMetrics.getMovesMade();
+        }
+
+        @Override
+        public long getRejectedMoves() {
+            return ChessMetrics.getRejectedMoves();
+        }
+
+        @Override
+        public long getMovesGenerated() {
+            return ChessMetrics.getMovesGenerated();
+        }
+
+        @Override
+        public long getBoardCopies() {
+            return ChessMetrics.getBoardCopies();
+        }
+
+        @Override
+        public LatencySnapshot getMakeMoveLatency() {
+            return MAKE_MOVE.snapshot();
+        }
+
+        @Override
+        public LatencySnapshot getIsValidMoveLatency() {
+            return IS_VALID_MOVE.snapshot();
+        }
+
+        @Override
+        public LatencySnapshot getIsKingInCheckLatency() {
+            return IS_KING_IN_CHECK.snapshot();
+        }
+
+        @Override
+        public LatencySnapshot getCheckGameEndLatency() {
+            return CHECK_GAME_END.snapshot();
+        }
+
+        @Override
+        public void reset() {
+            ChessMetrics.reset();
+        }
+
+        @Override
+        public String render() {
+            return ChessMetrics.render();
+        }
+    }
+}
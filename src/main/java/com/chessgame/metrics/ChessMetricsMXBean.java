@@ -0,0 +1,36 @@
+package com.chessgame.metrics;
+
+/**
+ * JMX view of {@link ChessMetrics}, registered as "com.chessgame:type=ChessMetrics"
+ */
+public interface ChessMetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getMovesMade();
+
+    long getRejectedMoves();
+
+    long getMovesGenerated();
+
+    long getBoardCopies();
+
+    LatencySnapshot getMakeMoveLatency();
+
+    LatencySnapshot getIsValidMoveLatency();
+
+    LatencySnapshot getIsKingInCheckLatency();
+
+    LatencySnapshot getCheckGameEndLatency();
+
+    /**
+     * Clear every counter and histogram
+     */
+    void reset();
+
+    /**
+     * Get all metrics in the text format served by {@link MetricsEndpoint}
+     */
+    String render();
+}
@@ -0,0 +1,121 @@
+package com.chessgame.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with HDR-style log-linear buckets: values below 32
+ * are counted exactly, larger ones in 16 buckets per power of two, so any recorded
+ * value is reported within about 6% of its true size. Recording is an atomic
+ * increment into one of several stripes chosen by thread, so threads rarely touch
+ * the same cache lines; a snapshot sums the stripes. A fixed stripe count keeps the
+ * memory bounded no matter how many threads, virtual or not, come and go.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int HALF = 1 << (SUB_BITS - 1);
+    // Enough buckets for any non-negative long
+    static final int BUCKETS = (64 - SUB_BITS + 1) * HALF;
+    private static final int SUM = BUCKETS;
+    private static final int MAX = BUCKETS + 1;
+    private static final int STRIPE_LENGTH = BUCKETS + 2;
+    private static final int MAX_STRIPES = 64;
+
+    private final String name;
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+
+    /**
+     * Create an empty histogram
+     * @param name Metric name, e.g. "make_move"
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+        int threads = Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors() * 2);
+        int count = Integer.highestOneBit(threads * 2 - 1);
+        stripes = new AtomicLongArray[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new AtomicLongArray(STRIPE_LENGTH);
+        }
+        stripeMask = count - 1;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Record one measurement
+     * @param nanos Elapsed time in nanoseconds; negative values count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        AtomicLongArray stripe = stripes[(int) mix(Thread.currentThread().getId()) & stripeMask];
+        stripe.incrementAndGet(bucketOf(value));
+        stripe.addAndGet(SUM, value);
+        long max = stripe.get(MAX);
+        while (value > max && !stripe.compareAndSet(MAX, max, value)) {
+            max = stripe.get(MAX);
+        }
+    }
+
+    /**
+     * Sum the stripes into an immutable snapshot; recording may continue meanwhile
+     * @return The snapshot
+     */
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long sum = 0;
+        long max = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += stripe.get(i);
+            }
+            sum += stripe.get(SUM);
+            max = Math.max(max, stripe.get(MAX));
+        }
+        return new LatencySnapshot(name, counts, sum, max);
+    }
+
+    /**
+     * Forget everything recorded so far; measurements made during the reset may be lost
+     */
+    public void reset() {
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < STRIPE_LENGTH; i++) {
+                stripe.set(i, 0L);
+            }
+        }
+    }
+
+    static int bucketOf(long value) {
+        if (value < 2 * HALF) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    /**
+     * Get the smallest value counted in a bucket
+     */
+    static long lowestValueOf(int bucket) {
+        if (bucket < 2 * HALF) {
+            return bucket;
+        }
+        int shift = bucket / HALF - 1;
+        return (long) (bucket % HALF + HALF) << shift;
+    }
+
+    /**
+     * Get the largest value counted in a bucket
+     */
+    static long highestValueOf(int bucket) {
+        return bucket + 1 < BUCKETS ? lowestValueOf(bucket + 1) - 1 : Long.MAX_VALUE;
+    }
+
+    // Thread ids are sequential; spread them over the stripes
+    private static long mix(long id) {
+        long x = id * 0x9E3779B97F4A7C15L;
+        return x ^ (x >>> 32);
+    }
+}
@@ -0,0 +1,82 @@
+package com.chessgame.metrics;
+
+/**
+ * Immutable summary of a {@link LatencyHistogram} at one moment. Percentiles are
+ * the upper end of the bucket holding the requested rank, capped at the largest
+ * value recorded.
+ */
+public final class LatencySnapshot {
+    private final String name;
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    LatencySnapshot(String name, long[] counts, long sum, long max) {
+        this.name = name;
+        this.counts = counts;
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        this.count = total;
+        this.sum = sum;
+        this.max = max;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSumNanos() {
+        return sum;
+    }
+
+    public long getMaxNanos() {
+        return max;
+    }
+
+    public double getMeanNanos() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    public long getP50Nanos() {
+        return getValueAtPercentile(50.0);
+    }
+
+    public long getP90Nanos() {
+        return getValueAtPercentile(90.0);
+    }
+
+    public long getP99Nanos() {
+        return getValueAtPercentile(99.0);
+    }
+
+    public long getP999Nanos() {
+        return getValueAtPercentile(99.9);
+    }
+
+    /**
+     * Get the value below which a percentage of the measurements fall
+     * @param percentile Percentage from 0 to 100
+     * @return Nanoseconds, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.highestValueOf(bucket), max);
+            }
+        }
+        return max;
+    }
+}
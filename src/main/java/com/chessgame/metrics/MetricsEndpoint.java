@@ -0,0 +1,46 @@
+package com.chessgame.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves {@link ChessMetrics#render()} as plain text over HTTP at /metrics, for
+ * scrapers that pull. Uses the JDK's built-in HTTP server; close the endpoint to
+ * stop its thread.
+ */
+public class MetricsEndpoint implements AutoCloseable {
+    public static final String PATH = "/metrics";
+
+    private final HttpServer server;
+
+    /**
+     * Start serving
+     * @param port TCP port, or 0 for any free port
+     * @throws IOException if the port cannot be opened
+     */
+    public MetricsEndpoint(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext(PATH, exchange -> {
+            byte[] body = ChessMetrics.render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(null);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
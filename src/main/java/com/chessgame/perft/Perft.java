@@ -0,0 +1,246 @@
+package com.chessgame.perft;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Fen;
+import com.chessgame.board.Move;
+import com.chessgame.board.MoveGenerator;
+import com.chessgame.board.MoveList;
+import com.chessgame.game.ChessGame;
+import java.io.PrintStream;
+
+/**
+ * Perft (performance test) driver for the move generator.
+ * Counts the leaf nodes of the legal move tree to a fixed depth, which both
+ * verifies move generation against published node counts and measures its speed.
+ *
+ * Usage:
+ *   java com.chessgame.perft.Perft                       run the reference suite to depth 4
+ *   java com.chessgame.perft.Perft suite 6               run the reference suite to depth 6
+ *   java com.chessgame.perft.Perft divide 5 [fen]        per-move node counts for one position
+ */
+public class Perft {
+    /**
+     * A standard test position with its published perft node counts
+     */
+    public static class ReferencePosition {
+        private final String name;
+        private final String fen;
+        private final long[] expected;
+
+        public ReferencePosition(String name, String fen, long... expected) {
+            this.name = name;
+            this.fen = fen;
+            this.expected = expected;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getFen() {
+            return fen;
+        }
+
+        /**
+         * Get the deepest depth with a known node count
+         * @return Maximum depth available
+         */
+        public int getMaxDepth() {
+            return expected.length;
+        }
+
+        /**
+         * Get the expected node count at a depth
+         * @param depth Depth starting at 1
+         * @return Published node count
+         */
+        public long getExpected(int depth) {
+            return expected[depth - 1];
+        }
+    }
+
+    // Positions and counts from the Chess Programming Wiki perft results page
+    public static final ReferencePosition[] REFERENCE_POSITIONS = {
+        new ReferencePosition("Initial position", Fen.START_POSITION,
+                20L, 400L, 8902L, 197281L, 4865609L, 119060324L),
+        new ReferencePosition("Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                48L, 2039L, 97862L, 4085603L, 193690690L),
+        new ReferencePosition("Position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                14L, 191L, 2812L, 43238L, 674624L, 11030083L),
+        new ReferencePosition("Position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                6L, 264L, 9467L, 422333L, 15833292L),
+        new ReferencePosition("Position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                44L, 1486L, 62379L, 2103487L, 89941194L),
+        new ReferencePosition("Position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                46L, 2079L, 89890L, 3894594L, 164075551L)
+    };
+
+    private Perft() {
+    }
+
+    /**
+     * Count the leaf nodes of the current game position
+     * @param game The game whose board is searched; it is restored afterwards
+     * @param depth Number of plies to search
+     * @return Number of leaf nodes
+     */
+    public static long perft(ChessGame game, int depth) {
+        return perft(game.getBoard().getBitboards(), depth);
+    }
+
+    /**
+     * Count the leaf nodes of the legal move tree
+     * @param position The position to search; it is restored afterwards
+     * @param depth Number of plies to search
+     * @return Number of leaf nodes
+     */
+    public static long perft(BitboardPosition position, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList[] lists = new MoveList[depth + 1];
+        for (int i = 1; i <= depth; i++) {
+            lists[i] = new MoveList();
+        }
+        return perft(position, depth, lists);
+    }
+
+    /**
+     * Recursive count with one preallocated move list per remaining depth.
+     * The last ply is counted straight from the legal move list.
+     */
+    private static long perft(BitboardPosition position, int depth, MoveList[] lists) {
+        MoveList moves = lists[depth];
+        MoveGenerator.generateLegal(position, moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            position.makeMove(moves.get(i));
+            nodes += perft(position, depth - 1, lists);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Print the node count below every legal root move, then the total
+     * @param position The position to search
+     * @param depth Number of plies to search, at least 1
+     * @param out Where to print the per-move counts
+     * @return Total number of leaf nodes
+     * @throws IllegalArgumentException if depth is less than 1
+     */
+    public static long divide(BitboardPosition position, int depth, PrintStream out) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be at least 1: " + depth);
+        }
+        long total = 0;
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegal(position, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            position.makeMove(move);
+            long nodes = perft(position, depth - 1);
+            position.unmakeMove();
+            total += nodes;
+            out.println(Move.toString(move) + ": " + nodes);
+        }
+        out.println();
+        out.println("Nodes: " + total);
+        return total;
+    }
+
+    /**
+     * Run every reference position up to a depth and report counts, time and speed
+     * @param maxDepth Deepest depth to run; positions with fewer known counts stop earlier
+     * @param out Where to print the report
+     * @return true if every node count matched
+     */
+    public static boolean runSuite(int maxDepth, PrintStream out) {
+        boolean allPassed = true;
+        long totalNodes = 0;
+        long totalNanos = 0;
+        BitboardPosition position = new BitboardPosition();
+
+        for (ReferencePosition reference : REFERENCE_POSITIONS) {
+            out.println(reference.getName() + ": " + reference.getFen());
+            Fen.load(reference.getFen(), position);
+            int depthLimit = Math.min(maxDepth, reference.getMaxDepth());
+            for (int depth = 1; depth <= depthLimit; depth++) {
+                long start = System.nanoTime();
+                long nodes = perft(position, depth);
+                long elapsed = System.nanoTime() - start;
+                totalNodes += nodes;
+                totalNanos += elapsed;
+
+                boolean passed = nodes == reference.getExpected(depth);
+                allPassed &= passed;
+                out.printf("  depth %d: %,d nodes (expected %,d) %s  %s%n", depth, nodes,
+                        reference.getExpected(depth), passed ? "OK" : "FAIL", formatSpeed(nodes, elapsed));
+            }
+        }
+
+        out.printf("Total: %,d nodes  %s%n", totalNodes, formatSpeed(totalNodes, totalNanos));
+        out.println(allPassed ? "All reference counts matched" : "Some reference counts did NOT match");
+        return allPassed;
+    }
+
+    private static String formatSpeed(long nodes, long nanos) {
+        double seconds = nanos / 1e9;
+        long nodesPerSecond = seconds > 0 ? (long) (nodes / seconds) : 0;
+        return String.format("%.3f s, %,d nps", seconds, nodesPerSecond);
+    }
+
+    public static void main(String[] args) {
+        if (args.length >= 2 && args[0].equals("divide")) {
+            int depth = parseDepth(args[1]);
+            if (depth < 1) {
+                printUsage();
+                return;
+            }
+            StringBuilder fen = new StringBuilder();
+            for (int i = 2; i < args.length; i++) {
+                fen.append(args[i]).append(' ');
+            }
+            BitboardPosition position = new BitboardPosition();
+            Fen.load(fen.length() > 0 ? fen.toString() : Fen.START_POSITION, position);
+
+            long start = System.nanoTime();
+            long nodes = divide(position, depth, System.out);
+            System.out.println(formatSpeed(nodes, System.nanoTime() - start));
+            return;
+        }
+
+        int maxDepth = 4;
+        if (args.length >= 2 && args[0].equals("suite")) {
+            maxDepth = parseDepth(args[1]);
+            if (maxDepth < 1) {
+                printUsage();
+                return;
+            }
+        }
+        boolean passed = runSuite(maxDepth, System.out);
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Read a depth argument
+     * @return The depth, or 0 if the text is not a number
+     */
+    private static int parseDepth(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: java com.chessgame.perft.Perft [suite DEPTH | divide DEPTH [fen]]");
+        System.out.println("DEPTH must be at least 1");
+    }
+}
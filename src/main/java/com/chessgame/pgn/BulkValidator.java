@@ -0,0 +1,227 @@
+package com.chessgame.pgn;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Validates a large PGN collection in parallel on a fork-join pool. The file is
+ * split recursively at game boundaries into chunks of roughly equal size; each
+ * chunk is replayed by its own PgnReader, so no board, game or scratch list is
+ * shared between threads. Partial reports are merged in file order, which keeps
+ * game indexes, illegal-move locations and final positions the same as a
+ * sequential read.
+ *
+ * Usage:
+ *   java com.chessgame.pgn.BulkValidator games.pgn [threads] [--errors]
+ */
+public class BulkValidator {
+    private static final long DEFAULT_CHUNK_BYTES = 1024 * 1024;
+    private static final int BOUNDARY_SCAN = 4096;
+
+    private final ForkJoinPool pool;
+    private final long chunkBytes;
+    private final boolean recordFinalPositions;
+
+    /**
+     * Create a validator using the common fork-join pool
+     * @param recordFinalPositions Whether to keep the FEN of every game's final position
+     */
+    public BulkValidator(boolean recordFinalPositions) {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES, recordFinalPositions);
+    }
+
+    /**
+     * Create a validator
+     * @param pool The pool the chunks run on
+     * @param chunkBytes Chunks smaller than this are not split further
+     * @param recordFinalPositions Whether to keep the FEN of every game's final position
+     */
+    public BulkValidator(ForkJoinPool pool, long chunkBytes, boolean recordFinalPositions) {
+        if (chunkBytes < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkBytes);
+        }
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+        this.recordFinalPositions = recordFinalPositions;
+    }
+
+    /**
+     * Validate every game in a file
+     * @param file The PGN file
+     * @return The merged report
+     * @throws IOException if the file cannot be read
+     */
+    public ValidationReport validate(Path file) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ValidationReport report;
+            try {
+                report = pool.invoke(new ChunkTask(channel, 0, channel.size()));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            report.setElapsedNanos(System.nanoTime() - start);
+            return report;
+        }
+    }
+
+    /**
+     * Replays one byte range, splitting it in two while it is larger than a chunk
+     */
+    private final class ChunkTask extends RecursiveTask<ValidationReport> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+
+        ChunkTask(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected ValidationReport compute() {
+            try {
+                if (end - start > chunkBytes) {
+                    long split = findGameStart(channel, start + (end - start) / 2, end);
+                    if (split > start && split < end) {
+                        ChunkTask second = new ChunkTask(channel, split, end);
+                        second.fork();
+                        ValidationReport report = new ChunkTask(channel, start, split).compute();
+                        report.append(second.join());
+                        return report;
+                    }
+                }
+                return replay();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private ValidationReport replay() throws IOException {
+            ValidationReport report = new ValidationReport(recordFinalPositions);
+            PgnReader reader = new PgnReader(game -> report.add(game, start));
+            reader.read(new RangeChannel(channel, start, end));
+            report.setBytes(end - start);
+            return report;
+        }
+    }
+
+    /**
+     * Find the first game that starts at or after a position: a tag line that
+     * follows a blank line, which in export format only happens between games
+     * @return Offset of the game's '[', or end if there is none
+     */
+    static long findGameStart(FileChannel channel, long from, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN);
+        // Newlines seen in a row, ignoring carriage returns and spaces
+        int newlines = 0;
+        long position = from;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    newlines++;
+                } else if (b == '[' && newlines >= 2) {
+                    return position + i;
+                } else if (b != '\r' && b != ' ' && b != '\t') {
+                    newlines = 0;
+                }
+            }
+            position += read;
+        }
+        return end;
+    }
+
+    /**
+     * Channel over one byte range of a file. Positional reads leave the shared
+     * channel's position alone, so several ranges can be read concurrently.
+     */
+    private static final class RangeChannel implements ReadableByteChannel {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        RangeChannel(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int limit = dst.limit();
+            if (dst.remaining() > end - position) {
+                dst.limit(dst.position() + (int) (end - position));
+            }
+            try {
+                int read = channel.read(dst, position);
+                if (read > 0) {
+                    position += read;
+                }
+                return read;
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java com.chessgame.pgn.BulkValidator games.pgn [threads] [--errors]");
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean showErrors = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--errors")) {
+                showErrors = true;
+            } else {
+                threads = Integer.parseInt(args[i]);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            ValidationReport report = new BulkValidator(pool, DEFAULT_CHUNK_BYTES, false)
+                    .validate(Paths.get(args[0]));
+            if (showErrors) {
+                for (IllegalMove illegal : report.getIllegalMoves()) {
+                    System.out.println(illegal);
+                }
+            }
+            System.out.println(report);
+            System.out.println(threads + " threads");
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.chessgame.pgn;
+
+/**
+ * Where a game in a bulk validation run stopped replaying, and why
+ */
+public class IllegalMove {
+    private final long gameIndex;
+    private final long offset;
+    private final int ply;
+    private final String move;
+    private final String reason;
+
+    public IllegalMove(long gameIndex, long offset, int ply, String move, String reason) {
+        this.gameIndex = gameIndex;
+        this.offset = offset;
+        this.ply = ply;
+        this.move = move;
+        this.reason = reason;
+    }
+
+    /**
+     * Get the game's position in the whole collection
+     * @return 0 for the first game
+     */
+    public long getGameIndex() {
+        return gameIndex;
+    }
+
+    /**
+     * Get the byte offset of the game in its file
+     * @return Offset of the game's first tag or move
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Get the number of moves replayed before the error
+     * @return Ply of the bad move
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * Get the move text that could not be played
+     * @return The SAN token, or null for errors such as a bad FEN tag
+     */
+    public String getMove() {
+        return move;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    IllegalMove shifted(long games) {
+        return new IllegalMove(gameIndex + games, offset, ply, move, reason);
+    }
+
+    @Override
+    public String toString() {
+        return "game " + (gameIndex + 1) + " at byte " + offset + ", ply " + ply
+                + (move != null ? " (" + move + ")" : "") + ": " + reason;
+    }
+}
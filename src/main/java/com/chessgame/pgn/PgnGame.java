@@ -0,0 +1,117 @@
+package com.chessgame.pgn;
+
+import com.chessgame.game.ChessGame;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * One game read from a PGN file: its tags, the moves that were replayed,
+ * the final position and, if replay failed, where and why
+ */
+public class PgnGame {
+    private final long index;
+    private final long offset;
+    private final Map<String, String> tags;
+    private final int[] moves;
+    private final String result;
+    private final ChessGame game;
+    private final String error;
+    private final String errorMove;
+
+    public PgnGame(long index, long offset, Map<String, String> tags, int[] moves, String result,
+                   ChessGame game, String error, String errorMove) {
+        this.index = index;
+        this.offset = offset;
+        this.tags = Collections.unmodifiableMap(tags);
+        this.moves = moves;
+        this.result = result;
+        this.game = game;
+        this.error = error;
+        this.errorMove = errorMove;
+    }
+
+    /**
+     * Get the position of the game in the file
+     * @return 0 for the first game
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Get the byte offset in the file where the game starts
+     * @return Offset of the game's first tag or move
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Get a tag value
+     * @param name Tag name, e.g. "White"
+     * @return The value, or null if the tag is absent
+     */
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    /**
+     * Get the moves that were replayed successfully
+     * @return Packed moves (see com.chessgame.board.Move); stops before the first bad move
+     */
+    public int[] getMoves() {
+        return moves.clone();
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    /**
+     * Get the game result from the movetext, or the Result tag if the movetext has none
+     * @return "1-0", "0-1", "1/2-1/2" or "*"
+     */
+    public String getResult() {
+        return result;
+    }
+
+    /**
+     * Get the game after replaying its moves
+     * @return The final position, or where replay stopped on an error
+     */
+    public ChessGame getGame() {
+        return game;
+    }
+
+    public boolean hasError() {
+        return error != null;
+    }
+
+    /**
+     * Get the reason replay failed
+     * @return Error message, or null if the whole game replayed
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Get the move text that could not be played
+     * @return The SAN token, or null if the error was not caused by a move
+     */
+    public String getErrorMove() {
+        return errorMove;
+    }
+
+    /**
+     * Get the ply at which replay stopped
+     * @return Number of moves played before the error, or the game length
+     */
+    public int getErrorPly() {
+        return moves.length;
+    }
+}
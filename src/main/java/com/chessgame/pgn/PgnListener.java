@@ -0,0 +1,12 @@
+package com.chessgame.pgn;
+
+/**
+ * Receives games from a PgnReader, one call per game, in file order
+ */
+public interface PgnListener {
+    /**
+     * Called after a game has been read and replayed
+     * @param game The game, including the error if it could not be replayed
+     */
+    void onGame(PgnGame game);
+}
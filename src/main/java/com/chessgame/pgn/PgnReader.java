@@ -0,0 +1,543 @@
+package com.chessgame.pgn;
+
+import com.chessgame.board.MoveList;
+import com.chessgame.board.San;
+import com.chessgame.game.ChessGame;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Streaming PGN reader. Files are memory-mapped one window at a time and other
+ * input is read through a fixed NIO buffer, so memory use does not grow with the
+ * size of the archive: only the game being read is held. Each game is replayed
+ * through ChessGame.makeMove as its moves arrive, then handed to a listener.
+ * A bad move or tag ends replay of that game only; reading continues with the next.
+ * A game with tags but no moves or result is reported as a game with an error.
+ * Comments, variations, NAGs and escape lines are skipped.
+ *
+ * Usage:
+ *   java com.chessgame.pgn.PgnReader games.pgn [--errors]
+ */
+public class PgnReader {
+    private static final int MAP_WINDOW = 64 * 1024 * 1024;
+    private static final int READ_BUFFER = 64 * 1024;
+    private static final int MAX_TOKEN = 255;
+    private static final int MAX_TAG_VALUE = 4096;
+    private static final int EOF = -1;
+
+    private final PgnListener listener;
+
+    // Input
+    private FileChannel mappedChannel;
+    private ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private long bufferStart;
+    private long nextMapStart;
+
+    // Scratch space reused across games
+    private final byte[] token = new byte[MAX_TOKEN];
+    private final ByteToken tokenText = new ByteToken(token);
+    private byte[] tagBytes = new byte[256];
+    private int[] moves = new int[256];
+    private final MoveList scratch = new MoveList();
+
+    // Current game
+    private boolean gameStarted;
+    private boolean movetextStarted;
+    private long gameOffset;
+    private Map<String, String> tags;
+    private ChessGame game;
+    private int moveCount;
+    private String error;
+    private String errorMove;
+
+    // Totals
+    private long games;
+    private long failedGames;
+    private long totalMoves;
+
+    /**
+     * Create a reader that hands every game to a listener
+     * @param listener Called once per game, on the reading thread
+     */
+    public PgnReader(PgnListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Read every game in a file, memory-mapping it in windows
+     * @param file The PGN file
+     * @return Totals and throughput of the run
+     * @throws IOException if the file cannot be read
+     */
+    public PgnStats read(Path file) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mappedChannel = fileChannel;
+            channel = null;
+            nextMapStart = 0;
+            buffer = ByteBuffer.allocate(0);
+            return run();
+        } finally {
+            mappedChannel = null;
+            buffer = null;
+        }
+    }
+
+    /**
+     * Read every game from a stream, e.g. standard input or a decompressing stream
+     * @param in The PGN input; it is not closed
+     * @return Totals and throughput of the run
+     * @throws IOException if reading fails
+     */
+    public PgnStats read(InputStream in) throws IOException {
+        return read(Channels.newChannel(in));
+    }
+
+    /**
+     * Read every game from a channel through a fixed buffer
+     * @param input The PGN input; it is not closed
+     * @return Totals and throughput of the run
+     * @throws IOException if reading fails
+     */
+    public PgnStats read(ReadableByteChannel input) throws IOException {
+        channel = input;
+        mappedChannel = null;
+        buffer = ByteBuffer.allocateDirect(READ_BUFFER);
+        buffer.flip();
+        try {
+            return run();
+        } finally {
+            channel = null;
+            buffer = null;
+        }
+    }
+
+    private PgnStats run() throws IOException {
+        long start = System.nanoTime();
+        bufferStart = 0;
+        games = 0;
+        failedGames = 0;
+        totalMoves = 0;
+        resetGame();
+
+        try {
+            readGames();
+        } catch (PgnReadException e) {
+            throw e.cause;
+        }
+
+        long bytes = bufferStart + (buffer == null ? 0 : buffer.position());
+        return new PgnStats(games, failedGames, totalMoves, bytes, System.nanoTime() - start);
+    }
+
+    private void readGames() {
+        boolean lineStart = true;
+        boolean blankLine = false;
+        int c;
+        while ((c = next()) != EOF) {
+            if (c == '\n') {
+                blankLine |= lineStart;
+                lineStart = true;
+                continue;
+            }
+            if (c == ' ' || c == '\t' || c == '\r') {
+                continue;
+            }
+            if (c == '%' && lineStart) {
+                skipTo('\n');
+                continue;
+            }
+            lineStart = false;
+            if (c != '[') {
+                movetextStarted = true;
+            }
+            switch (c) {
+                case '[':
+                    // A tag after movetext or after a blank line begins a new game,
+                    // so the previous one had no result token
+                    if (gameStarted && (movetextStarted || blankLine)) {
+                        finishGame(null);
+                    }
+                    startGame(offsetOfLastByte());
+                    readTag();
+                    blankLine = false;
+                    break;
+                case '{':
+                    skipTo('}');
+                    break;
+                case ';':
+                    skipTo('\n');
+                    lineStart = true;
+                    break;
+                case '(':
+                    skipVariation();
+                    break;
+                case '$':
+                    skipWhile(true);
+                    break;
+                case '*':
+                    finishGame("*");
+                    break;
+                default:
+                    long offset = offsetOfLastByte();
+                    handleToken(readToken(c), offset);
+                    break;
+            }
+        }
+        if (gameStarted) {
+            finishGame(null);
+        }
+    }
+
+    private void handleToken(int length, long offset) {
+        if (isResult(length)) {
+            finishGame(new String(token, 0, length, StandardCharsets.US_ASCII));
+            return;
+        }
+
+        // Strip a leading move number such as "12." or "12..." (also glued to the move: "12.e4")
+        int start = 0;
+        while (start < length && token[start] >= '0' && token[start] <= '9') {
+            start++;
+        }
+        if (start == length) {
+            return; // bare move number
+        }
+        if (token[start] != '.') {
+            start = 0; // a move starting with a digit, e.g. "0-0"
+        }
+        while (start < length && token[start] == '.') {
+            start++;
+        }
+        if (start == length) {
+            return;
+        }
+
+        startGame(offset);
+        if (game == null) {
+            createGame();
+        }
+        if (error != null) {
+            return; // the rest of a failed game is skipped
+        }
+        tokenText.set(start, length);
+        try {
+            int move = San.parse(game.getBoard().getBitboards(), tokenText, scratch);
+            if (!game.makeMove(move)) {
+                fail("move rejected by the game", tokenText.toString());
+                return;
+            }
+            if (moveCount == moves.length) {
+                moves = Arrays.copyOf(moves, moveCount * 2);
+            }
+            moves[moveCount++] = move;
+        } catch (IllegalArgumentException e) {
+            fail(e.getMessage(), tokenText.toString());
+        }
+    }
+
+    private boolean isResult(int length) {
+        return matches(length, "1-0") || matches(length, "0-1") || matches(length, "1/2-1/2");
+    }
+
+    private boolean matches(int length, String text) {
+        if (length != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (token[i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void startGame(long offset) {
+        if (!gameStarted) {
+            gameStarted = true;
+            gameOffset = offset;
+        }
+    }
+
+    private long offsetOfLastByte() {
+        return bufferStart + buffer.position() - 1;
+    }
+
+    private void createGame() {
+        String fen = tags.get("FEN");
+        try {
+            game = fen != null ? new ChessGame(fen) : new ChessGame();
+        } catch (IllegalArgumentException e) {
+            game = new ChessGame();
+            fail(e.getMessage(), null);
+        }
+    }
+
+    private void fail(String message, String move) {
+        if (error == null) {
+            error = message;
+            errorMove = move;
+        }
+    }
+
+    private void finishGame(String resultToken) {
+        if (!gameStarted) {
+            return;
+        }
+        if (game == null) {
+            createGame();
+            if (resultToken == null) {
+                fail("game has tags but no moves or result", null);
+            }
+        }
+        String result = resultToken;
+        if (result == null) {
+            result = tags.containsKey("Result") ? tags.get("Result") : "*";
+        }
+        PgnGame finished = new PgnGame(games, gameOffset, tags, Arrays.copyOf(moves, moveCount), result,
+                game, error, errorMove);
+        games++;
+        totalMoves += moveCount;
+        if (error != null) {
+            failedGames++;
+        }
+        resetGame();
+        listener.onGame(finished);
+    }
+
+    private void resetGame() {
+        gameStarted = false;
+        movetextStarted = false;
+        tags = new LinkedHashMap<>();
+        game = null;
+        moveCount = 0;
+        error = null;
+        errorMove = null;
+    }
+
+    // Lexing helpers
+
+    private int readToken(int first) {
+        int length = 0;
+        int c = first;
+        while (true) {
+            if (length < MAX_TOKEN) {
+                token[length++] = (byte) c;
+            }
+            c = peek();
+            if (c == EOF || isDelimiter(c)) {
+                return length;
+            }
+            next();
+        }
+    }
+
+    private static boolean isDelimiter(int c) {
+        switch (c) {
+            case ' ': case '\t': case '\r': case '\n':
+            case '[': case ']': case '{': case '}': case '(': case ')': case ';': case '$': case '*':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void readTag() {
+        int c = skipBlanks();
+        StringBuilder name = new StringBuilder();
+        while (c != EOF && c != '"' && c != ']' && c != ' ' && c != '\t') {
+            name.append((char) c);
+            c = next();
+        }
+        while (c == ' ' || c == '\t') {
+            c = next();
+        }
+        if (c != '"') {
+            if (c != ']') {
+                skipTo(']');
+            }
+            return;
+        }
+        int length = 0;
+        while ((c = next()) != EOF && c != '"' && c != '\n') {
+            if (c == '\\') {
+                c = next();
+                if (c == EOF) {
+                    break;
+                }
+            }
+            if (length < MAX_TAG_VALUE) {
+                if (length == tagBytes.length) {
+                    tagBytes = Arrays.copyOf(tagBytes, length * 2);
+                }
+                tagBytes[length++] = (byte) c;
+            }
+        }
+        tags.put(name.toString(), new String(tagBytes, 0, length, StandardCharsets.UTF_8));
+        if (c == '"') {
+            skipTo(']');
+        }
+    }
+
+    private void skipVariation() {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = next()) != EOF) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '{') {
+                skipTo('}');
+            }
+        }
+    }
+
+    private void skipWhile(boolean digits) {
+        int c;
+        while ((c = peek()) != EOF && (c >= '0' && c <= '9') == digits) {
+            next();
+        }
+    }
+
+    private void skipTo(int end) {
+        int c;
+        while ((c = next()) != EOF && c != end) {
+            // skip
+        }
+    }
+
+    private int skipBlanks() {
+        int c = next();
+        while (c == ' ' || c == '\t') {
+            c = next();
+        }
+        return c;
+    }
+
+    // Buffer management
+
+    private int next() {
+        if (!buffer.hasRemaining() && !fill()) {
+            return EOF;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    private int peek() {
+        if (!buffer.hasRemaining() && !fill()) {
+            return EOF;
+        }
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    private boolean fill() {
+        try {
+            bufferStart += buffer.limit();
+            if (mappedChannel != null) {
+                long size = mappedChannel.size();
+                if (nextMapStart >= size) {
+                    bufferStart -= buffer.limit();
+                    return false;
+                }
+                long length = Math.min(MAP_WINDOW, size - nextMapStart);
+                buffer = mappedChannel.map(FileChannel.MapMode.READ_ONLY, nextMapStart, length);
+                nextMapStart += length;
+                return true;
+            }
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            buffer.flip();
+            if (read < 0) {
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            throw new PgnReadException(e);
+        }
+    }
+
+    /**
+     * Unchecked wrapper so the byte-level helpers need no throws clauses;
+     * run() unwraps it into the original IOException
+     */
+    private static class PgnReadException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final IOException cause;
+
+        PgnReadException(IOException cause) {
+            super(cause);
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * CharSequence view of part of the token buffer, so SAN parsing allocates nothing
+     */
+    private static final class ByteToken implements CharSequence {
+        private final byte[] bytes;
+        private int start;
+        private int end;
+
+        ByteToken(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        void set(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[start + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString().substring(from, to);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java com.chessgame.pgn.PgnReader games.pgn [--errors]");
+            return;
+        }
+        boolean showErrors = args.length > 1 && args[1].equals("--errors");
+        PgnReader reader = new PgnReader(game -> {
+            if (showErrors && game.hasError()) {
+                System.out.println("Game " + (game.getIndex() + 1) + " at byte " + game.getOffset()
+                        + ", ply " + game.getErrorPly()
+                        + (game.getErrorMove() != null ? " (" + game.getErrorMove() + ")" : "")
+                        + ": " + game.getError());
+            }
+        });
+        System.out.println(reader.read(Paths.get(args[0])));
+    }
+}
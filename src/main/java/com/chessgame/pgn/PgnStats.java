@@ -0,0 +1,52 @@
+package com.chessgame.pgn;
+
+/**
+ * Totals for one PgnReader run
+ */
+public class PgnStats {
+    private final long games;
+    private final long failedGames;
+    private final long moves;
+    private final long bytes;
+    private final long elapsedNanos;
+
+    public PgnStats(long games, long failedGames, long moves, long bytes, long elapsedNanos) {
+        this.games = games;
+        this.failedGames = failedGames;
+        this.moves = moves;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getFailedGames() {
+        return failedGames;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getGamesPerSecond() {
+        return elapsedNanos > 0 ? games * 1e9 / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        double seconds = elapsedNanos / 1e9;
+        return String.format("%,d games (%,d failed), %,d moves, %,d bytes in %.3f s: %,.0f games/s, %.1f MB/s",
+                games, failedGames, moves, bytes, seconds, getGamesPerSecond(),
+                seconds > 0 ? bytes / seconds / (1024 * 1024) : 0.0);
+    }
+}
@@ -0,0 +1,150 @@
+package com.chessgame.pgn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregated outcome of validating a game collection: totals, result counts,
+ * where games went wrong and, optionally, every game's final position.
+ * Partial reports from separate chunks are merged in file order.
+ */
+public class ValidationReport {
+    public static final String STATE_CHECKMATE = "checkmate";
+    public static final String STATE_STALEMATE = "stalemate";
+    public static final String STATE_UNFINISHED = "unfinished";
+    public static final String STATE_FAILED = "failed";
+
+    private long games;
+    private long failedGames;
+    private long moves;
+    private long bytes;
+    private long elapsedNanos;
+    private final Map<String, Long> declaredResults = new TreeMap<>();
+    private final Map<String, Long> finalStates = new TreeMap<>();
+    private final List<IllegalMove> illegalMoves = new ArrayList<>();
+    private final List<String> finalPositions;
+
+    ValidationReport(boolean recordFinalPositions) {
+        finalPositions = recordFinalPositions ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Count one replayed game
+     */
+    void add(PgnGame game, long offsetBase) {
+        long index = games++;
+        moves += game.getMoveCount();
+        increment(declaredResults, game.getResult());
+        if (game.hasError()) {
+            failedGames++;
+            illegalMoves.add(new IllegalMove(index, offsetBase + game.getOffset(), game.getErrorPly(),
+                    game.getErrorMove(), game.getError()));
+            increment(finalStates, STATE_FAILED);
+        } else if (!game.getGame().isGameOver()) {
+            increment(finalStates, STATE_UNFINISHED);
+        } else {
+            increment(finalStates, game.getGame().isKingInCheck(game.getGame().getCurrentPlayer())
+                    ? STATE_CHECKMATE : STATE_STALEMATE);
+        }
+        if (finalPositions != null) {
+            finalPositions.add(game.getGame().toFen());
+        }
+    }
+
+    /**
+     * Append the report of the chunk that follows this one in the file
+     */
+    void append(ValidationReport next) {
+        for (IllegalMove illegal : next.illegalMoves) {
+            illegalMoves.add(illegal.shifted(games));
+        }
+        games += next.games;
+        failedGames += next.failedGames;
+        moves += next.moves;
+        bytes += next.bytes;
+        next.declaredResults.forEach((result, count) -> declaredResults.merge(result, count, Long::sum));
+        next.finalStates.forEach((state, count) -> finalStates.merge(state, count, Long::sum));
+        if (finalPositions != null) {
+            finalPositions.addAll(next.finalPositions);
+        }
+    }
+
+    void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    private static void increment(Map<String, Long> counts, String key) {
+        counts.merge(key, 1L, Long::sum);
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getFailedGames() {
+        return failedGames;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getGamesPerSecond() {
+        return elapsedNanos > 0 ? games * 1e9 / elapsedNanos : 0;
+    }
+
+    /**
+     * Get how many games declared each result
+     * @return Counts keyed by "1-0", "0-1", "1/2-1/2" and "*"
+     */
+    public Map<String, Long> getDeclaredResults() {
+        return Collections.unmodifiableMap(declaredResults);
+    }
+
+    /**
+     * Get how many games ended in each state after replay
+     * @return Counts keyed by the STATE_ constants
+     */
+    public Map<String, Long> getFinalStates() {
+        return Collections.unmodifiableMap(finalStates);
+    }
+
+    /**
+     * Get every game that could not be replayed, in file order
+     * @return The failures
+     */
+    public List<IllegalMove> getIllegalMoves() {
+        return Collections.unmodifiableList(illegalMoves);
+    }
+
+    /**
+     * Get the final position of every game, in file order
+     * @return FEN strings, or null if final positions were not recorded
+     */
+    public List<String> getFinalPositions() {
+        return finalPositions == null ? null : Collections.unmodifiableList(finalPositions);
+    }
+
+    @Override
+    public String toString() {
+        double seconds = elapsedNanos / 1e9;
+        return String.format("%,d games (%,d failed), %,d moves, %,d bytes in %.3f s: %,.0f games/s%n"
+                        + "declared results: %s%nfinal states: %s",
+                games, failedGames, moves, bytes, seconds, getGamesPerSecond(), declaredResults, finalStates);
+    }
+}
@@ -1,5 +1,6 @@
 package com.chessgame.pieces;
 
+import com.chessgame.board.BitboardPosition;
 import com.chessgame.board.Position;
 import java.util.ArrayList;
 import java.util.List;
@@ -26,13 +27,12 @@ public class King extends Piece {
         for (int i = 0; i < 8; i++) {
             int newRow = currentRow + rowOffsets[i];
             int newCol = currentCol + colOffsets[i];
-            Position newPos = new Position(newRow, newCol);
             
-            if (newPos.isValid()) {
+            if (newRow >= 0 && newRow < 8 && newCol >= 0 && newCol < 8) {
                 Piece targetPiece = board[newRow][newCol];
                 // Can move to empty square or capture opponent's piece
                 if (targetPiece == null || targetPiece.getColor() != this.color) {
-                    validMoves.add(newPos);
+                    validMoves.add(Position.of(newRow, newCol));
                 }
             }
         }
@@ -49,4 +49,9 @@ public class King extends Piece {
     public String getPieceType() {
         return "King";
     }
+    
+    @Override
+    public int getTypeIndex() {
+        return BitboardPosition.KING;
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.chessgame.pieces;
 
+import com.chessgame.board.BitboardPosition;
 import com.chessgame.board.Position;
 import java.util.ArrayList;
 import java.util.List;
@@ -26,13 +27,13 @@ public class Pawn extends Piece {
         int newRow = currentRow + direction;
         if (newRow >= 0 && newRow < 8) {
             if (board[newRow][currentCol] == null) {
-                validMoves.add(new Position(newRow, currentCol));
+                validMoves.add(Position.of(newRow, currentCol));
                 
                 // Initial two-square move
                 if (!hasMoved) {
                     int twoSquareRow = currentRow + (2 * direction);
                     if (twoSquareRow >= 0 && twoSquareRow < 8 && board[twoSquareRow][currentCol] == null) {
-                        validMoves.add(new Position(twoSquareRow, currentCol));
+                        validMoves.add(Position.of(twoSquareRow, currentCol));
                     }
                 }
             }
@@ -46,7 +47,7 @@ public class Pawn extends Piece {
             if (captureRow >= 0 && captureRow < 8 && captureCol >= 0 && captureCol < 8) {
                 Piece targetPiece = board[captureRow][captureCol];
                 if (targetPiece != null && targetPiece.getColor() != this.color) {
-                    validMoves.add(new Position(captureRow, captureCol));
+                    validMoves.add(Position.of(captureRow, captureCol));
                 }
             }
         }
@@ -63,4 +64,9 @@ public class Pawn extends Piece {
     public String getPieceType() {
         return "Pawn";
     }
+    
+    @Override
+    public int getTypeIndex() {
+        return BitboardPosition.PAWN;
+    }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.chessgame.pieces;
 
+import com.chessgame.board.Bitboards;
 import com.chessgame.board.Position;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -37,6 +39,16 @@ public abstract class Piece {
     public boolean hasMoved() {
         return hasMoved;
     }
+
+    /**
+     * Put the piece back where it stood before a move was taken back
+     * @param position The previous position
+     * @param hasMoved The moved flag the piece had at that position
+     */
+    public void restorePosition(Position position, boolean hasMoved) {
+        this.position = position;
+        this.hasMoved = hasMoved;
+    }
     
     /**
      * Get all valid moves for this piece
@@ -45,6 +57,45 @@ public abstract class Piece {
      */
     public abstract List<Position> getValidMoves(Piece[][] board);
     
+    /**
+     * Build an occupancy bitboard from a board array
+     * @param board The current board state
+     * @return Bitboard with a bit set for every occupied square
+     */
+    protected static long occupancyOf(Piece[][] board) {
+        long occupied = 0L;
+        for (int row = 0; row < 8; row++) {
+            Piece[] rank = board[row];
+            for (int col = 0; col < 8; col++) {
+                if (rank[col] != null) {
+                    occupied |= Bitboards.bit(Bitboards.square(row, col));
+                }
+            }
+        }
+        return occupied;
+    }
+    
+    /**
+     * Convert an attack set into moves, dropping squares held by own pieces
+     * @param attacks Bitboard of attacked squares
+     * @param board The current board state
+     * @return List of valid positions this piece can move to
+     */
+    protected List<Position> attacksToMoves(long attacks, Piece[][] board) {
+        List<Position> validMoves = new ArrayList<>(Long.bitCount(attacks));
+        while (attacks != 0) {
+            int square = Bitboards.lowestSquare(attacks);
+            attacks &= attacks - 1;
+            int row = Bitboards.rowOf(square);
+            int col = Bitboards.colOf(square);
+            Piece targetPiece = board[row][col];
+            if (targetPiece == null || targetPiece.getColor() != this.color) {
+                validMoves.add(Position.of(row, col));
+            }
+        }
+        return validMoves;
+    }
+    
     /**
      * Get the symbol representing this piece
      * @return Unicode symbol for the piece
@@ -75,7 +126,13 @@ public abstract class Piece {
      * @return String representation of piece type
      */
     public abstract String getPieceType();
-    
+
+    /**
+     * Get the bitboard type index of this piece
+     * @return One of the BitboardPosition piece type constants
+     */
+    public abstract int getTypeIndex();
+
     @Override
     public String toString() {
         return color + " " + getPieceType() + " at " + position;
@@ -0,0 +1,93 @@
+package com.chessgame.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves one connection: reads command lines and writes one reply per line.
+ * The protocol is ASCII, so lines are assembled straight from a small byte buffer
+ * instead of through a Reader; an idle session holds only that buffer and its thread.
+ * The session owns the games it creates; the server removes them when it ends.
+ */
+final class ClientSession implements Runnable {
+    private static final int MAX_LINE = 512;
+
+    private final GameServer server;
+    private final Socket socket;
+    private final byte[] buffer = new byte[MAX_LINE];
+    // Written by this session's thread, removed from by any thread that closes a game
+    private final Set<Long> ownedGames = ConcurrentHashMap.newKeySet();
+
+    ClientSession(GameServer server, Socket socket) {
+        this.server = server;
+        this.socket = socket;
+    }
+
+    /**
+     * Get the ids of the games this connection created and that still exist
+     */
+    Set<Long> getOwnedGames() {
+        return ownedGames;
+    }
+
+    @Override
+    public void run() {
+        try (Socket connection = socket) {
+            InputStream in = connection.getInputStream();
+            OutputStream out = connection.getOutputStream();
+            int start = 0;
+            int end = 0;
+            boolean overflow = false;
+            while (true) {
+                int newline = indexOf(start, end);
+                if (newline < 0) {
+                    if (start == 0 && end == buffer.length) {
+                        // Too long for the buffer: drop it and answer once its end arrives
+                        overflow = true;
+                        end = 0;
+                    } else if (start > 0) {
+                        System.arraycopy(buffer, start, buffer, 0, end - start);
+                        end -= start;
+                        start = 0;
+                    }
+                    int read = in.read(buffer, end, buffer.length - end);
+                    if (read < 0) {
+                        return;
+                    }
+                    end += read;
+                    continue;
+                }
+                int length = newline - start;
+                if (length > 0 && buffer[newline - 1] == '\r') {
+                    length--;
+                }
+                String command = new String(buffer, start, length, StandardCharsets.US_ASCII);
+                start = newline + 1;
+                String reply = overflow ? "ERR line too long" : server.execute(this, command);
+                out.write((reply + "\n").getBytes(StandardCharsets.US_ASCII));
+                if (!overflow && command.trim().equalsIgnoreCase("QUIT")) {
+                    return;
+                }
+                overflow = false;
+            }
+        } catch (IOException e) {
+            // The client went away
+        } finally {
+            server.disconnected(this, socket);
+        }
+    }
+
+    private int indexOf(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,349 @@
+package com.chessgame.server;
+
+import com.chessgame.game.ChessGame;
+import com.chessgame.pieces.Piece;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts many games over TCP with a line-based text protocol.
+ * Each connection is served by its own thread: a virtual thread on Java 21 and
+ * later, otherwise a small-stack platform thread. Games live in a concurrent map
+ * and each game has its own lock, so there is no lock shared between games.
+ * Any connection that knows a game's id can play it, but the game is removed when
+ * the connection that created it goes away, unless that was opted out of with KEEP.
+ * Games untouched for the idle timeout are removed too, and the number of games
+ * per connection and in total is limited, so abandoned games cannot fill the heap.
+ *
+ * Protocol, one command per line; every reply is one line starting with OK or ERR:
+ *   NEW [fen]                  OK id
+ *   MOVE id move               OK result fen     (move as "e2e4", "e7e8q" or SAN)
+ *   STATE id                   OK result fen     (result is *, 1-0, 0-1 or 1/2-1/2)
+ *   RESIGN id [white|black]    OK result fen     (the side to move by default)
+ *   KEEP id                    OK                (the game outlives its creator's connection)
+ *   CLOSE id                   OK
+ *   QUIT                       OK, then the connection is closed
+ *
+ * Usage:
+ *   java com.chessgame.server.GameServer [port]
+ */
+public class GameServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 5555;
+    public static final int DEFAULT_MAX_GAMES = 200000;
+    public static final int DEFAULT_MAX_GAMES_PER_CONNECTION = 32;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    private static final int BACKLOG = 4096;
+    // Platform fallback threads mostly sit in a blocking read, so a small stack is enough
+    private static final long SESSION_STACK_SIZE = 256 * 1024;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions;
+    private final boolean virtualThreads;
+    private final ConcurrentHashMap<Long, HostedGame> games = new ConcurrentHashMap<>();
+    private final AtomicInteger gameCount = new AtomicInteger();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final int maxGames;
+    private final int maxGamesPerConnection;
+    private final long idleTimeoutNanos;
+    private final ScheduledExecutorService reaper;
+    private volatile boolean closed;
+
+    /**
+     * Open the listening socket with the default limits
+     * @param port TCP port, or 0 for any free port
+     * @throws IOException if the port cannot be opened
+     */
+    public GameServer(int port) throws IOException {
+        this(port, DEFAULT_MAX_GAMES, DEFAULT_MAX_GAMES_PER_CONNECTION, DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Open the listening socket; call {@link #start()} or {@link #serve()} to accept connections
+     * @param port TCP port, or 0 for any free port
+     * @param maxGames Most games hosted at once
+     * @param maxGamesPerConnection Most games one connection may have created and not yet closed
+     * @param idleTimeoutMillis Time after which a game nobody has touched is removed
+     * @throws IOException if the port cannot be opened
+     */
+    public GameServer(int port, int maxGames, int maxGamesPerConnection, long idleTimeoutMillis)
+            throws IOException {
+        if (maxGames < 1 || maxGamesPerConnection < 1 || idleTimeoutMillis < 1) {
+            throw new IllegalArgumentException("Game limits and idle timeout must be positive");
+        }
+        this.maxGames = maxGames;
+        this.maxGamesPerConnection = maxGamesPerConnection;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        serverSocket = new ServerSocket(port, BACKLOG);
+        ExecutorService virtual = newVirtualThreadExecutor();
+        virtualThreads = virtual != null;
+        sessions = virtual != null ? virtual : Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(null, runnable, "game-session", SESSION_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        });
+        reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, Math.min(idleTimeoutMillis / 4, 60000));
+        reaper.scheduleWithFixedDelay(this::removeIdleGames, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create a virtual-thread-per-task executor when the running Java has one.
+     * Looked up by reflection so the project still builds and runs on Java 8.
+     * @return The executor, or null before Java 21
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Check whether connections are served by virtual threads
+     * @return false if platform threads are used instead
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public int getGameCount() {
+        return gameCount.get();
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * Accept connections on a background thread
+     */
+    public void start() {
+        Thread acceptor = new Thread(() -> {
+            try {
+                serve();
+            } catch (IOException e) {
+                if (!closed) {
+                    e.printStackTrace();
+                }
+            }
+        }, "game-server-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Accept connections on the calling thread until the server is closed
+     * @throws IOException if accepting fails for a reason other than closing
+     */
+    public void serve() throws IOException {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                if (closed) {
+                    return;
+                }
+                throw e;
+            }
+            socket.setTcpNoDelay(true);
+            connections.add(socket);
+            sessions.execute(new ClientSession(this, socket));
+        }
+    }
+
+    /**
+     * Remove the games a connection created, except those it asked to keep
+     */
+    void disconnected(ClientSession session, Socket socket) {
+        connections.remove(socket);
+        for (long id : session.getOwnedGames()) {
+            HostedGame game = games.get(id);
+            if (game != null && !game.isKept()) {
+                remove(id);
+            }
+        }
+        session.getOwnedGames().clear();
+    }
+
+    private void removeIdleGames() {
+        long now = System.nanoTime();
+        for (HostedGame game : games.values()) {
+            if (now - game.getLastUsed() > idleTimeoutNanos) {
+                remove(game.getId());
+            }
+        }
+    }
+
+    private boolean remove(long id) {
+        HostedGame game = games.remove(id);
+        if (game == null) {
+            return false;
+        }
+        gameCount.decrementAndGet();
+        if (game.getOwner() != null) {
+            game.getOwner().getOwnedGames().remove(id);
+        }
+        return true;
+    }
+
+    /**
+     * Run one protocol command on behalf of no connection. Games created this way
+     * are removed only by CLOSE or the idle timeout.
+     * @param line The command, without the line terminator
+     * @return The reply, without the line terminator
+     */
+    public String execute(String line) {
+        return execute(null, line);
+    }
+
+    /**
+     * Run one protocol command
+     * @param session The connection sending it, which owns the games it creates, or null
+     * @param line The command, without the line terminator
+     * @return The reply, without the line terminator
+     */
+    String execute(ClientSession session, String line) {
+        String command = line.trim();
+        int space = command.indexOf(' ');
+        String name = (space < 0 ? command : command.substring(0, space)).toUpperCase();
+        String[] args = space < 0 ? new String[0] : command.substring(space + 1).trim().split(" +");
+        try {
+            switch (name) {
+                case "NEW":
+                    return "OK " + create(session, space < 0 ? null : command.substring(space + 1).trim());
+                case "MOVE":
+                    expectArguments(args, 2, 2);
+                    return "OK " + game(args[0]).move(args[1]);
+                case "STATE":
+                    expectArguments(args, 1, 1);
+                    return "OK " + game(args[0]).state();
+                case "RESIGN":
+                    expectArguments(args, 1, 2);
+                    return "OK " + game(args[0]).resign(args.length > 1 ? colorOf(args[1]) : null);
+                case "KEEP":
+                    expectArguments(args, 1, 1);
+                    game(args[0]).keep();
+                    return "OK";
+                case "CLOSE":
+                    expectArguments(args, 1, 1);
+                    if (!remove(parseId(args[0]))) {
+                        throw new IllegalArgumentException("unknown game " + args[0]);
+                    }
+                    return "OK";
+                case "QUIT":
+                    return "OK";
+                default:
+                    return "ERR unknown command " + name;
+            }
+        } catch (IllegalArgumentException e) {
+            return "ERR " + e.getMessage();
+        }
+    }
+
+    private long create(ClientSession session, String fen) {
+        // Only the session's own thread adds to its games, so checking first is safe
+        if (session != null && session.getOwnedGames().size() >= maxGamesPerConnection) {
+            throw new IllegalArgumentException("too many games on this connection (" + maxGamesPerConnection + ")");
+        }
+        if (gameCount.incrementAndGet() > maxGames) {
+            gameCount.decrementAndGet();
+            throw new IllegalArgumentException("too many games on the server (" + maxGames + ")");
+        }
+        ChessGame game;
+        try {
+            game = fen == null || fen.isEmpty() ? new ChessGame() : new ChessGame(fen);
+        } catch (IllegalArgumentException e) {
+            gameCount.decrementAndGet();
+            throw e;
+        }
+        long id = nextId.getAndIncrement();
+        if (session != null) {
+            session.getOwnedGames().add(id);
+        }
+        games.put(id, new HostedGame(id, game, session));
+        return id;
+    }
+
+    private HostedGame game(String id) {
+        HostedGame game = games.get(parseId(id));
+        if (game == null) {
+            throw new IllegalArgumentException("unknown game " + id);
+        }
+        return game;
+    }
+
+    private static long parseId(String id) {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad game id " + id);
+        }
+    }
+
+    private static Piece.Color colorOf(String name) {
+        if (name.equalsIgnoreCase("white")) {
+            return Piece.Color.WHITE;
+        }
+        if (name.equalsIgnoreCase("black")) {
+            return Piece.Color.BLACK;
+        }
+        throw new IllegalArgumentException("bad color " + name);
+    }
+
+    private static void expectArguments(String[] args, int min, int max) {
+        if (args.length < min || args.length > max) {
+            throw new IllegalArgumentException("wrong number of arguments");
+        }
+    }
+
+    /**
+     * Stop accepting connections and close every open one
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        reaper.shutdownNow();
+        serverSocket.close();
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+        sessions.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        try (GameServer server = new GameServer(port)) {
+            System.out.printf("Listening on port %d with %s threads per connection%n",
+                    server.getPort(), server.usesVirtualThreads() ? "virtual" : "platform");
+            server.serve();
+        }
+    }
+}
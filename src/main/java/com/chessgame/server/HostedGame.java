@@ -0,0 +1,147 @@
+package com.chessgame.server;
+
+import com.chessgame.board.Move;
+import com.chessgame.board.MoveList;
+import com.chessgame.board.San;
+import com.chessgame.game.ChessGame;
+import com.chessgame.pieces.Piece;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One game hosted by the server. Every game has its own lock, so sessions playing
+ * different games never wait for each other. A ReentrantLock is used rather than
+ * synchronized so that a virtual thread waiting for it does not pin its carrier.
+ * The time of the last command is kept so the server can remove idle games.
+ */
+final class HostedGame {
+    private final long id;
+    private final ChessGame game;
+    private final ClientSession owner;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final MoveList scratch = new MoveList();
+    private Piece.Color resigned;
+    private volatile boolean kept;
+    private volatile long lastUsed = System.nanoTime();
+
+    HostedGame(long id, ChessGame game, ClientSession owner) {
+        this.id = id;
+        this.game = game;
+        this.owner = owner;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    /**
+     * Get the connection that created the game
+     * @return The session, or null if the game was created without one
+     */
+    ClientSession getOwner() {
+        return owner;
+    }
+
+    /**
+     * Let the game outlive the connection that created it
+     */
+    void keep() {
+        kept = true;
+        lastUsed = System.nanoTime();
+    }
+
+    boolean isKept() {
+        return kept;
+    }
+
+    /**
+     * Get the System.nanoTime of the last command on the game
+     */
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * Play a move given in coordinate notation ("e2e4", "e7e8q") or SAN ("Nf3")
+     * @return The state after the move
+     * @throws IllegalArgumentException if the game is over or the move is not legal
+     */
+    String move(String text) {
+        lock.lock();
+        try {
+            lastUsed = System.nanoTime();
+            if (isOver()) {
+                throw new IllegalArgumentException("game is over");
+            }
+            int move;
+            try {
+                move = Move.parse(text);
+            } catch (IllegalArgumentException e) {
+                move = San.parse(game.getBoard().getBitboards(), text, scratch);
+            }
+            if (!game.makeMove(move)) {
+                throw new IllegalArgumentException("illegal move " + text);
+            }
+            return stateLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Resign on behalf of a player
+     * @param color The resigning player, or null for the side to move
+     * @return The state after resigning
+     * @throws IllegalArgumentException if the game is already over
+     */
+    String resign(Piece.Color color) {
+        lock.lock();
+        try {
+            lastUsed = System.nanoTime();
+            if (isOver()) {
+                throw new IllegalArgumentException("game is over");
+            }
+            resigned = color != null ? color : game.getCurrentPlayer();
+            return stateLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the result and position, e.g. "* rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1"
+     */
+    String state() {
+        lock.lock();
+        try {
+            lastUsed = System.nanoTime();
+            return stateLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isOver() {
+        return resigned != null || game.isGameOver();
+    }
+
+    private String stateLocked() {
+        return result() + " " + game.toFen();
+    }
+
+    /**
+     * Get the result in PGN form: 1-0 or 0-1 after checkmate or resignation,
+     * 1/2-1/2 after stalemate and * while the game goes on
+     */
+    private String result() {
+        if (resigned != null) {
+            return resigned == Piece.Color.WHITE ? "0-1" : "1-0";
+        }
+        if (!game.isGameOver()) {
+            return "*";
+        }
+        if (!game.isKingInCheck(game.getCurrentPlayer())) {
+            return "1/2-1/2";
+        }
+        return game.getCurrentPlayer() == Piece.Color.WHITE ? "0-1" : "1-0";
+    }
+}
@@ -0,0 +1,288 @@
+package com.chessgame.tablebase;
+
+import com.chessgame.board.BitboardPosition;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The pieces of an endgame besides the two kings, named like "KQK" or "KRKP":
+ * white's king and pieces, then black's. Within a side pieces are listed strongest
+ * first. A table is stored once, for the orientation where white has the stronger
+ * material; positions with the colors the other way round are probed mirrored.
+ */
+final class Material {
+    static final int MAX_PIECES = 4;
+    // Keys of materials with up to two pieces besides the kings, see keyOf
+    static final int KEY_COUNT = 11 * 11;
+
+    // Piece letters indexed by BitboardPosition type, which also orders them by strength
+    private static final String LETTERS = "PNBRQ";
+    private static final int[] VALUES = {1, 3, 3, 5, 9};
+
+    private final int[] colors;
+    private final int[] types;
+    private final String name;
+
+    private Material(int[] white, int[] black) {
+        int[] w = sortStrongestFirst(white);
+        int[] b = sortStrongestFirst(black);
+        colors = new int[w.length + b.length];
+        types = new int[w.length + b.length];
+        StringBuilder sb = new StringBuilder("K");
+        for (int i = 0; i < w.length; i++) {
+            colors[i] = BitboardPosition.WHITE;
+            types[i] = w[i];
+            sb.append(LETTERS.charAt(w[i]));
+        }
+        sb.append('K');
+        for (int i = 0; i < b.length; i++) {
+            colors[w.length + i] = BitboardPosition.BLACK;
+            types[w.length + i] = b[i];
+            sb.append(LETTERS.charAt(b[i]));
+        }
+        name = sb.toString();
+    }
+
+    /**
+     * Parse a material name such as "KQK" or "KBNK"
+     * @param name The name; case is ignored
+     * @return The material, in the orientation given
+     * @throws IllegalArgumentException if the name is malformed, has more than four pieces,
+     *         or gives both sides pawns
+     */
+    static Material parse(String name) {
+        String upper = name.toUpperCase();
+        int second = upper.indexOf('K', 1);
+        if (!upper.startsWith("K") || second < 0 || upper.indexOf('K', second + 1) >= 0
+                || upper.length() > MAX_PIECES) {
+            throw new IllegalArgumentException("Bad material, expected e.g. KQK or KRKP: " + name);
+        }
+        Material material = new Material(typesOf(upper.substring(1, second), name),
+                typesOf(upper.substring(second + 1), name));
+        if (material.hasPawnsOnBothSides()) {
+            throw new IllegalArgumentException("Pawns on both sides are not supported, as en passant is not tabulated: "
+                    + name);
+        }
+        return material;
+    }
+
+    /**
+     * Get the material of a position
+     * @param position The position
+     * @return The material, or null if it has more than four pieces or a side has no king
+     */
+    static Material of(BitboardPosition position) {
+        long occupied = position.getOccupied();
+        if (Long.bitCount(occupied) > MAX_PIECES
+                || position.getKingSquare(BitboardPosition.WHITE) < 0
+                || position.getKingSquare(BitboardPosition.BLACK) < 0) {
+            return null;
+        }
+        int[][] sides = new int[2][];
+        for (int color = 0; color < 2; color++) {
+            int[] list = new int[4];
+            int count = 0;
+            for (int type = BitboardPosition.PAWN; type < BitboardPosition.KING; type++) {
+                for (int n = Long.bitCount(position.getPieces(color, type)); n > 0; n--) {
+                    list[count++] = type;
+                }
+            }
+            sides[color] = Arrays.copyOf(list, count);
+        }
+        return new Material(sides[BitboardPosition.WHITE], sides[BitboardPosition.BLACK]);
+    }
+
+    /**
+     * Get a small number identifying the material of a position without building it.
+     * Each piece besides the kings is a digit 1-10 for its color and type, in a
+     * fixed order, so positions with the same material get the same key.
+     * @param position The position
+     * @return A key below KEY_COUNT, 0 for bare kings, or -1 if {@link #of} would return null
+     */
+    static int keyOf(BitboardPosition position) {
+        if (Long.bitCount(position.getOccupied()) > MAX_PIECES
+                || position.getKingSquare(BitboardPosition.WHITE) < 0
+                || position.getKingSquare(BitboardPosition.BLACK) < 0) {
+            return -1;
+        }
+        int key = 0;
+        for (int color = 0; color < 2; color++) {
+            for (int type = BitboardPosition.PAWN; type < BitboardPosition.KING; type++) {
+                for (int n = Long.bitCount(position.getPieces(color, type)); n > 0; n--) {
+                    key = key * 11 + color * 5 + type + 1;
+                }
+            }
+        }
+        return key;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getPieceCount() {
+        return types.length;
+    }
+
+    int getColor(int piece) {
+        return colors[piece];
+    }
+
+    int getType(int piece) {
+        return types[piece];
+    }
+
+    boolean hasPawns() {
+        for (int type : types) {
+            if (type == BitboardPosition.PAWN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether both sides have pawns. Such tables are not generated: a double
+     * push next to an enemy pawn allows an en passant capture the index has no room
+     * for, so the push would be scored as if the capture were impossible.
+     */
+    boolean hasPawnsOnBothSides() {
+        boolean[] pawns = new boolean[2];
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == BitboardPosition.PAWN) {
+                pawns[colors[i]] = true;
+            }
+        }
+        return pawns[BitboardPosition.WHITE] && pawns[BitboardPosition.BLACK];
+    }
+
+    /**
+     * Check whether this is the orientation tables are stored in: white's pieces
+     * are worth more, or the same and listed stronger
+     */
+    boolean isCanonical() {
+        int[] white = side(BitboardPosition.WHITE);
+        int[] black = side(BitboardPosition.BLACK);
+        int difference = value(white) - value(black);
+        if (difference != 0) {
+            return difference > 0;
+        }
+        if (white.length != black.length) {
+            return white.length > black.length;
+        }
+        for (int i = 0; i < white.length; i++) {
+            if (white[i] != black[i]) {
+                return white[i] > black[i];
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Swap the colors
+     * @return The same pieces with white and black exchanged
+     */
+    Material flipped() {
+        return new Material(side(BitboardPosition.BLACK), side(BitboardPosition.WHITE));
+    }
+
+    Material canonical() {
+        return isCanonical() ? this : flipped();
+    }
+
+    /**
+     * Get every material a move can turn this one into: one piece captured, a pawn
+     * promoted, or both at once
+     * @return Canonical materials with at least one piece besides the kings
+     */
+    List<Material> getSuccessors() {
+        Set<String> names = new LinkedHashSet<>();
+        List<Material> result = new ArrayList<>();
+        for (int captured = -1; captured < types.length; captured++) {
+            for (int promoted = -1; promoted < types.length; promoted++) {
+                if ((captured < 0 && promoted < 0) || captured == promoted
+                        || (promoted >= 0 && types[promoted] != BitboardPosition.PAWN)
+                        || (captured >= 0 && promoted >= 0 && colors[captured] == colors[promoted])) {
+                    continue;
+                }
+                for (int promotion = BitboardPosition.KNIGHT; promotion <= BitboardPosition.QUEEN; promotion++) {
+                    Material next = replace(captured, promoted, promotion).canonical();
+                    if (next.types.length > 0 && names.add(next.name)) {
+                        result.add(next);
+                    }
+                    if (promoted < 0) {
+                        break;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private Material replace(int captured, int promoted, int promotion) {
+        int[][] sides = {new int[types.length], new int[types.length]};
+        int[] counts = new int[2];
+        for (int i = 0; i < types.length; i++) {
+            if (i != captured) {
+                sides[colors[i]][counts[colors[i]]++] = i == promoted ? promotion : types[i];
+            }
+        }
+        return new Material(Arrays.copyOf(sides[0], counts[0]), Arrays.copyOf(sides[1], counts[1]));
+    }
+
+    private int[] side(int color) {
+        int count = 0;
+        for (int c : colors) {
+            if (c == color) {
+                count++;
+            }
+        }
+        int[] side = new int[count];
+        int n = 0;
+        for (int i = 0; i < types.length; i++) {
+            if (colors[i] == color) {
+                side[n++] = types[i];
+            }
+        }
+        return side;
+    }
+
+    private static int value(int[] pieces) {
+        int value = 0;
+        for (int type : pieces) {
+            value += VALUES[type];
+        }
+        return value;
+    }
+
+    private static int[] typesOf(String letters, String name) {
+        int[] result = new int[letters.length()];
+        for (int i = 0; i < letters.length(); i++) {
+            int type = LETTERS.indexOf(letters.charAt(i));
+            if (type < 0) {
+                throw new IllegalArgumentException("Unknown piece '" + letters.charAt(i) + "' in " + name);
+            }
+            result[i] = type;
+        }
+        return result;
+    }
+
+    private static int[] sortStrongestFirst(int[] pieces) {
+        int[] sorted = pieces.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length / 2; i++) {
+            int t = sorted[i];
+            sorted[i] = sorted[sorted.length - 1 - i];
+            sorted[sorted.length - 1 - i] = t;
+        }
+        return sorted;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,247 @@
+package com.chessgame.tablebase;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Bitboards;
+import com.chessgame.board.Move;
+import com.chessgame.board.MoveGenerator;
+import com.chessgame.board.MoveList;
+import com.chessgame.game.ChessGame;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Probes endgame tables written by {@link TablebaseGenerator}. Tables are mapped
+ * from the directory the first time their material is probed. After that
+ * {@link #probe} looks the table up by a small material key and computes the index
+ * in caller-supplied scratch arrays, so it allocates nothing and is safe and cheap
+ * to call from every search node and from any number of threads.
+ * Positions with castling rights or a possible en passant capture are not covered,
+ * nor are materials where both sides have pawns, and the fifty-move rule is not
+ * taken into account.
+ */
+public class Tablebase {
+    public static final int WIN = 1;
+    public static final int DRAW = 0;
+    public static final int LOSS = -1;
+    public static final int UNKNOWN = -2;
+
+    /** Length of the scratch arrays {@link #probe} takes */
+    public static final int SCRATCH_SIZE = Material.MAX_PIECES;
+
+    private static final int[] WDL_OF_CODE = {DRAW, WIN, LOSS, UNKNOWN};
+
+    private final Path directory;
+    private final ConcurrentHashMap<String, Optional<TablebaseFile>> files = new ConcurrentHashMap<>();
+    // Tables by Material.keyOf, filled on first probe; racing threads at worst open the same entry twice
+    private final TableRef[] tables = new TableRef[Material.KEY_COUNT];
+
+    /**
+     * Use the tables in a directory
+     * @param directory Directory holding .wdl and .dtm files
+     */
+    public Tablebase(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get the largest number of pieces, kings included, any table can have
+     * @return Piece count
+     */
+    public int getMaxPieces() {
+        return Material.MAX_PIECES;
+    }
+
+    /**
+     * Check whether the tables for a material are present
+     * @param material Name such as "KQK"; either color orientation is accepted
+     * @return true if the material can be probed
+     * @throws IllegalArgumentException if the name is malformed or gives both sides pawns
+     */
+    public boolean hasTable(String material) {
+        return file(Material.parse(material).canonical()) != null;
+    }
+
+    /**
+     * Look a position up. This is the probe to use in a search: it reads the table
+     * once for both the outcome and the distance, and allocates nothing once the
+     * material's table has been opened.
+     * @param position The position
+     * @param squares Scratch array of at least SCRATCH_SIZE entries
+     * @param transformed Second scratch array of at least SCRATCH_SIZE entries
+     * @return A packed entry to read with {@link #wdlOf} and {@link #distanceOf},
+     *         or -1 if no table covers the position
+     */
+    public int probe(BitboardPosition position, int[] squares, int[] transformed) {
+        if (position.getCastlingRights() != 0 || canCaptureEnPassant(position)) {
+            return -1;
+        }
+        int key = Material.keyOf(position);
+        if (key < 0) {
+            return -1;
+        }
+        if (key == 0) {
+            return TablebaseFile.CODE_DRAW;
+        }
+        TableRef table = tables[key];
+        if (table == null) {
+            table = open(position);
+            tables[key] = table;
+        }
+        if (table.file == null) {
+            return -1;
+        }
+        int slot = table.file.getIndex().encode(position, table.flipped, squares, transformed);
+        int code = table.file.getCode(slot);
+        return code == TablebaseFile.CODE_INVALID ? -1 : code | table.file.getDistance(slot) << 2;
+    }
+
+    /**
+     * Get the outcome stored in a probed entry
+     * @param entry The result of {@link #probe}
+     * @return WIN, DRAW or LOSS for the side to move, or UNKNOWN for -1
+     */
+    public static int wdlOf(int entry) {
+        return entry < 0 ? UNKNOWN : WDL_OF_CODE[entry & 3];
+    }
+
+    /**
+     * Get the distance to mate stored in a probed entry
+     * @param entry The result of {@link #probe}
+     * @return Plies until the losing side is mated, 0 for draws and checkmates, or -1 for -1
+     */
+    public static int distanceOf(int entry) {
+        return entry < 0 ? -1 : entry >>> 2;
+    }
+
+    /**
+     * Get the outcome of a position with perfect play
+     * @param position The position
+     * @return WIN, DRAW or LOSS for the side to move, or UNKNOWN if no table covers it
+     */
+    public int probeWdl(BitboardPosition position) {
+        return wdlOf(probeEntry(position));
+    }
+
+    /**
+     * Get the distance to mate of a position with perfect play
+     * @param position The position
+     * @return Plies until the losing side is mated, 0 for draws and checkmates,
+     *         or -1 if no table covers the position
+     */
+    public int probeDtm(BitboardPosition position) {
+        return distanceOf(probeEntry(position));
+    }
+
+    /**
+     * Get a move that keeps the best outcome: the fastest mate when winning, the
+     * longest resistance when losing, and a drawing move otherwise
+     * @param position The position; it is restored afterwards
+     * @return A packed legal move, or Move.NONE if no table covers the position
+     */
+    public int getBestMove(BitboardPosition position) {
+        int[] squares = new int[SCRATCH_SIZE];
+        int[] transformed = new int[SCRATCH_SIZE];
+        if (probe(position, squares, transformed) < 0) {
+            return Move.NONE;
+        }
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegal(position, moves);
+        int bestMove = Move.NONE;
+        int bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            position.makeMove(moves.get(i));
+            int child = probe(position, squares, transformed);
+            position.unmakeMove();
+            if (child < 0) {
+                continue;
+            }
+            int wdl = wdlOf(child);
+            int distance = distanceOf(child);
+            // The child is scored from the opponent's side: their loss is our win
+            int rank = wdl == LOSS ? 1000 - distance : wdl == WIN ? -1000 + distance : 0;
+            if (rank > bestRank) {
+                bestRank = rank;
+                bestMove = moves.get(i);
+            }
+        }
+        return bestMove;
+    }
+
+    public int probeWdl(ChessGame game) {
+        return probeWdl(game.getBoard().getBitboards());
+    }
+
+    public int probeDtm(ChessGame game) {
+        return probeDtm(game.getBoard().getBitboards());
+    }
+
+    /**
+     * Get the tablebase move for a game's current position
+     * @param game The game; it is not modified
+     * @return A packed legal move, or Move.NONE if no table covers the position
+     */
+    public int getBestMove(ChessGame game) {
+        return getBestMove(new BitboardPosition(game.getBoard().getBitboards()));
+    }
+
+    /**
+     * Look a position up with scratch arrays of its own, for callers that probe rarely
+     */
+    private int probeEntry(BitboardPosition position) {
+        return probe(position, new int[SCRATCH_SIZE], new int[SCRATCH_SIZE]);
+    }
+
+    /**
+     * Find the table of a position's material the first time it is probed. Files of
+     * materials with pawns on both sides are ignored, as they cannot be right.
+     */
+    private TableRef open(BitboardPosition position) {
+        Material material = Material.of(position);
+        if (material.hasPawnsOnBothSides()) {
+            return new TableRef(null, false);
+        }
+        boolean flipped = !material.isCanonical();
+        return new TableRef(file(flipped ? material.flipped() : material), flipped);
+    }
+
+    private TablebaseFile file(Material material) {
+        return files.computeIfAbsent(material.getName(), name -> {
+            try {
+                return Optional.ofNullable(TablebaseFile.open(directory, material));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).orElse(null);
+    }
+
+    private static boolean canCaptureEnPassant(BitboardPosition position) {
+        int ep = position.getEnPassantSquare();
+        if (ep < 0) {
+            return false;
+        }
+        int side = position.getSideToMove();
+        // Our pawns that attack the square are exactly those the opponent's pawn would attack from it
+        return (Bitboards.PAWN_ATTACKS[side ^ 1][ep] & position.getPieces(side, BitboardPosition.PAWN)) != 0;
+    }
+
+    /**
+     * The table of one material key and whether positions are probed mirrored.
+     * Immutable, so it can be shared through the unsynchronized array.
+     */
+    private static final class TableRef {
+        final TablebaseFile file;
+        final boolean flipped;
+
+        TableRef(TablebaseFile file, boolean flipped) {
+            this.file = file;
+            this.flipped = flipped;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.chessgame.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The two files of one material: "KQK.wdl" with two bits per index slot and
+ * "KQK.dtm" with one byte per slot, the distance to mate in plies for the side
+ * that wins. Both start with a 16-byte little-endian header of magic "CGTB",
+ * version, kind and slot count. Probing maps both files read-only.
+ */
+final class TablebaseFile {
+    static final int MAGIC = 0x42544743; // "CGTB" read little-endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int KIND_WDL = 0;
+    static final int KIND_DTM = 1;
+
+    // Two-bit codes in the WDL file, from the side to move's point of view
+    static final int CODE_DRAW = 0;
+    static final int CODE_WIN = 1;
+    static final int CODE_LOSS = 2;
+    static final int CODE_INVALID = 3;
+
+    private final Material material;
+    private final TablebaseIndex index;
+    private final MappedByteBuffer wdl;
+    private final MappedByteBuffer dtm;
+
+    private TablebaseFile(Material material, TablebaseIndex index, MappedByteBuffer wdl, MappedByteBuffer dtm) {
+        this.material = material;
+        this.index = index;
+        this.wdl = wdl;
+        this.dtm = dtm;
+    }
+
+    static Path wdlPath(Path directory, Material material) {
+        return directory.resolve(material.getName() + ".wdl");
+    }
+
+    static Path dtmPath(Path directory, Material material) {
+        return directory.resolve(material.getName() + ".dtm");
+    }
+
+    static boolean exists(Path directory, Material material) {
+        return Files.isRegularFile(wdlPath(directory, material)) && Files.isRegularFile(dtmPath(directory, material));
+    }
+
+    /**
+     * Map the files of a material
+     * @return The tables, or null if either file is missing
+     * @throws IOException if a file cannot be read or does not match the material's index
+     */
+    static TablebaseFile open(Path directory, Material material) throws IOException {
+        if (!exists(directory, material)) {
+            return null;
+        }
+        TablebaseIndex index = new TablebaseIndex(material);
+        MappedByteBuffer wdl = map(wdlPath(directory, material), KIND_WDL, index.size(), (index.size() + 3) / 4);
+        MappedByteBuffer dtm = map(dtmPath(directory, material), KIND_DTM, index.size(), index.size());
+        return new TablebaseFile(material, index, wdl, dtm);
+    }
+
+    private static MappedByteBuffer map(Path file, int kind, int slots, int bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_SIZE + bytes) {
+                throw new IOException("Wrong tablebase file size: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                    || buffer.getInt(8) != kind || buffer.getInt(12) != slots) {
+                throw new IOException("Not a version " + VERSION + " tablebase file: " + file);
+            }
+            return buffer;
+        }
+    }
+
+    /**
+     * Write the files of a material
+     * @param wdlCodes Packed two-bit codes, four slots per byte, lowest bits first
+     * @param distances Distance to mate per slot
+     */
+    static void write(Path directory, Material material, int slots, byte[] wdlCodes, byte[] distances)
+            throws IOException {
+        writeFile(wdlPath(directory, material), KIND_WDL, slots, wdlCodes);
+        writeFile(dtmPath(directory, material), KIND_DTM, slots, distances);
+    }
+
+    private static void writeFile(Path file, int kind, int slots, byte[] data) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(kind).putInt(slots).flip();
+        // Written under a temporary name so a partial file is never taken for a table
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            ByteBuffer body = ByteBuffer.wrap(data);
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    Material getMaterial() {
+        return material;
+    }
+
+    TablebaseIndex getIndex() {
+        return index;
+    }
+
+    int getCode(int slot) {
+        return (wdl.get(HEADER_SIZE + (slot >>> 2)) >>> ((slot & 3) * 2)) & 3;
+    }
+
+    int getDistance(int slot) {
+        return dtm.get(HEADER_SIZE + slot) & 0xFF;
+    }
+}
@@ -0,0 +1,485 @@
+package com.chessgame.tablebase;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Bitboards;
+import com.chessgame.board.Move;
+import com.chessgame.board.MoveGenerator;
+import com.chessgame.board.MoveList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Generates endgame tables of up to four pieces by retrograde analysis.
+ * <p>
+ * A first pass over every index slot finds checkmates and stalemates, counts each
+ * position's distinct successors in the same table and looks up moves that leave
+ * it (captures and promotions) in the smaller tables, which are generated first.
+ * Then, level by level from mate, positions decided at distance d are un-moved:
+ * a parent of a loss is a win at d + 1, and a parent whose every successor is a
+ * win for the opponent is a loss. Each level scans the index in parallel chunks
+ * on a fork-join pool, with the per-slot state in an atomic array. Whatever is
+ * still undecided at the end is a draw.
+ * <p>
+ * Materials where both sides have pawns, such as KPKP, are refused: the index
+ * has no en passant square, so a double push that allows an en passant capture
+ * would be scored as if it did not.
+ * <p>
+ * Usage:
+ *   java com.chessgame.tablebase.TablebaseGenerator directory KQK KRK KPK KBNK ...
+ */
+public class TablebaseGenerator {
+    private static final int CHUNK = 1 << 14;
+
+    // Slot state: status in bits 0-2, depth in bits 3-11, successors not yet known to win in bits 12 and up
+    private static final int UNKNOWN = 0;
+    private static final int WIN = 1;
+    private static final int LOSS = 2;
+    private static final int DRAW = 3;
+    private static final int INVALID = 4;
+    private static final int DEPTH_SHIFT = 3;
+    private static final int COUNT_SHIFT = 12;
+    private static final int MAX_DEPTH = 255;
+
+    private final Path directory;
+    private final ForkJoinPool pool;
+
+    /**
+     * Create a generator using the common fork-join pool
+     * @param directory Where tables are written and looked up
+     */
+    public TablebaseGenerator(Path directory) {
+        this(directory, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a generator
+     * @param directory Where tables are written and looked up
+     * @param pool The pool the passes run on
+     */
+    public TablebaseGenerator(Path directory, ForkJoinPool pool) {
+        this.directory = directory;
+        this.pool = pool;
+    }
+
+    /**
+     * Generate the tables for a material and every smaller material it can turn
+     * into, skipping tables already in the directory
+     * @param material Name such as "KQK" or "KRKP"; either color orientation is accepted
+     * @return One summary line per table generated, smallest first
+     * @throws IOException if a table cannot be written
+     * @throws IllegalArgumentException if the material name is malformed or gives both sides pawns
+     */
+    public List<String> generate(String material) throws IOException {
+        Files.createDirectories(directory);
+        List<String> summaries = new ArrayList<>();
+        generate(Material.parse(material).canonical(), summaries);
+        return summaries;
+    }
+
+    private void generate(Material material, List<String> summaries) throws IOException {
+        if (TablebaseFile.exists(directory, material)) {
+            return;
+        }
+        for (Material successor : material.getSuccessors()) {
+            generate(successor, summaries);
+        }
+        summaries.add(new Build(material).run());
+    }
+
+    private static int pack(int status, int depth, int count) {
+        return status | depth << DEPTH_SHIFT | count << COUNT_SHIFT;
+    }
+
+    private static int statusOf(int state) {
+        return state & 7;
+    }
+
+    private static int depthOf(int state) {
+        return (state >>> DEPTH_SHIFT) & 511;
+    }
+
+    /**
+     * The working state of one table
+     */
+    private final class Build {
+        private final Material material;
+        private final TablebaseIndex index;
+        private final int size;
+        private final Tablebase successors = new Tablebase(directory);
+        private final AtomicIntegerArray state;
+        // Best distances through moves that leave the table, 0 for none
+        private final byte[] exitWin;
+        private final byte[] exitLoss;
+        private final AtomicInteger lastLevel = new AtomicInteger();
+
+        Build(Material material) {
+            this.material = material;
+            index = new TablebaseIndex(material);
+            size = index.size();
+            state = new AtomicIntegerArray(size);
+            exitWin = new byte[size];
+            exitLoss = new byte[size];
+        }
+
+        String run() throws IOException {
+            long start = System.nanoTime();
+            parallel(this::initialize);
+            for (int level = 0; level <= lastLevel.get(); level++) {
+                final int current = level;
+                if (level > 0) {
+                    parallel((from, to) -> settleExitWins(current, from, to));
+                }
+                parallel((from, to) -> propagate(current, from, to));
+            }
+            return write(System.nanoTime() - start);
+        }
+
+        private void parallel(RangeAction action) {
+            pool.invoke(new RangeTask(action, 0, size));
+        }
+
+        private void initialize(int from, int to) {
+            BitboardPosition position = new BitboardPosition();
+            MoveList moves = new MoveList();
+            int[] squares = new int[index.squareCount()];
+            int[] childSquares = new int[squares.length];
+            int[] scratch = new int[squares.length];
+            int[] children = new int[MoveList.CAPACITY];
+
+            for (int slot = from; slot < to; slot++) {
+                int side = index.decode(slot, squares);
+                if (!setUp(position, side, squares) || index.encode(side, squares, scratch) != slot) {
+                    state.set(slot, INVALID);
+                    continue;
+                }
+                MoveGenerator.generateLegal(position, moves);
+                if (moves.isEmpty()) {
+                    state.set(slot, pack(position.isInCheck(side) ? LOSS : DRAW, 0, 0));
+                    continue;
+                }
+
+                int childCount = 0;
+                int win = 0;
+                int loss = 0;
+                boolean escape = false;
+                for (int i = 0; i < moves.size(); i++) {
+                    int move = moves.get(i);
+                    position.makeMove(move);
+                    if (Move.isCapture(move) || Move.promotion(move) != 0) {
+                        int entry = successors.probe(position, childSquares, scratch);
+                        if (entry < 0) {
+                            throw new IllegalStateException("No table for " + Material.of(position) + " in " + directory);
+                        }
+                        int distance = (entry >>> 2) + 1;
+                        int code = entry & 3;
+                        if (code == TablebaseFile.CODE_LOSS) {
+                            win = win == 0 ? distance : Math.min(win, distance);
+                        } else if (code == TablebaseFile.CODE_WIN) {
+                            loss = Math.max(loss, distance);
+                        } else {
+                            escape = true;
+                        }
+                    } else {
+                        // Count distinct successors, so symmetric moves match the un-moves found later
+                        int child = index.encode(position, false, childSquares, scratch);
+                        int j = 0;
+                        while (j < childCount && children[j] != child) {
+                            j++;
+                        }
+                        if (j == childCount) {
+                            children[childCount++] = child;
+                        }
+                    }
+                    position.unmakeMove();
+                }
+                if (win > MAX_DEPTH || loss > MAX_DEPTH) {
+                    throw new IllegalStateException("Distance to mate over " + MAX_DEPTH + " plies in " + material);
+                }
+
+                exitWin[slot] = (byte) win;
+                exitLoss[slot] = (byte) loss;
+                raiseLastLevel(Math.max(win, loss));
+                if (childCount == 0 && win == 0 && !escape) {
+                    state.set(slot, pack(LOSS, loss, 0));
+                } else {
+                    // A winning or drawing exit keeps the position from ever becoming a loss
+                    state.set(slot, pack(UNKNOWN, 0, childCount + (win > 0 || escape ? 1 : 0)));
+                }
+            }
+        }
+
+        /**
+         * Decide the positions whose best move leaves the table at this distance.
+         * This runs before the level's un-moves, which can only set longer distances.
+         */
+        private void settleExitWins(int level, int from, int to) {
+            for (int slot = from; slot < to; slot++) {
+                if ((exitWin[slot] & 0xFF) == level && statusOf(state.get(slot)) == UNKNOWN) {
+                    state.set(slot, pack(WIN, level, 0));
+                }
+            }
+        }
+
+        private void propagate(int level, int from, int to) {
+            int[] squares = new int[index.squareCount()];
+            int[] parentSquares = new int[squares.length];
+            int[] scratch = new int[squares.length];
+            int[] parents = new int[MoveList.CAPACITY];
+
+            for (int slot = from; slot < to; slot++) {
+                int current = state.get(slot);
+                int status = statusOf(current);
+                if ((status != WIN && status != LOSS) || depthOf(current) != level) {
+                    continue;
+                }
+                int side = index.decode(slot, squares);
+                int count = unmove(side, squares, parentSquares, scratch, parents);
+                for (int i = 0; i < count; i++) {
+                    if (status == LOSS) {
+                        markWin(parents[i], level + 1);
+                    } else {
+                        resolveSuccessor(parents[i], level);
+                    }
+                }
+            }
+        }
+
+        private void markWin(int slot, int depth) {
+            while (true) {
+                int current = state.get(slot);
+                if (statusOf(current) != UNKNOWN) {
+                    return;
+                }
+                if (state.compareAndSet(slot, current, pack(WIN, depth, 0))) {
+                    raiseLastLevel(depth);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Record that one more successor of a position wins for the opponent
+         */
+        private void resolveSuccessor(int slot, int level) {
+            while (true) {
+                int current = state.get(slot);
+                int count = current >>> COUNT_SHIFT;
+                if (statusOf(current) != UNKNOWN || count == 0) {
+                    return;
+                }
+                if (count > 1) {
+                    if (state.compareAndSet(slot, current, current - (1 << COUNT_SHIFT))) {
+                        return;
+                    }
+                } else {
+                    int depth = Math.max(level + 1, exitLoss[slot] & 0xFF);
+                    if (state.compareAndSet(slot, current, pack(LOSS, depth, 0))) {
+                        raiseLastLevel(depth);
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void raiseLastLevel(int depth) {
+            if (depth > MAX_DEPTH) {
+                throw new IllegalStateException("Distance to mate over " + MAX_DEPTH + " plies in " + material);
+            }
+            lastLevel.accumulateAndGet(depth, Math::max);
+        }
+
+        /**
+         * Place the pieces of a slot on a board
+         * @return false if the slot is not a legal position
+         */
+        private boolean setUp(BitboardPosition position, int side, int[] squares) {
+            long occupied = 0L;
+            for (int square : squares) {
+                if ((occupied & Bitboards.bit(square)) != 0) {
+                    return false;
+                }
+                occupied |= Bitboards.bit(square);
+            }
+            position.clear();
+            position.addPiece(BitboardPosition.WHITE, BitboardPosition.KING, squares[0]);
+            position.addPiece(BitboardPosition.BLACK, BitboardPosition.KING, squares[1]);
+            for (int i = 0; i < material.getPieceCount(); i++) {
+                int type = material.getType(i);
+                int row = Bitboards.rowOf(squares[i + 2]);
+                if (type == BitboardPosition.PAWN && (row == 0 || row == 7)) {
+                    return false;
+                }
+                position.addPiece(material.getColor(i), type, squares[i + 2]);
+            }
+            position.setSideToMove(side);
+            return !position.isSquareAttacked(position.getKingSquare(side ^ 1), side);
+        }
+
+        private String write(long elapsedNanos) throws IOException {
+            byte[] codes = new byte[(size + 3) / 4];
+            byte[] distances = new byte[size];
+            long wins = 0;
+            long losses = 0;
+            long draws = 0;
+            int longest = 0;
+            for (int slot = 0; slot < size; slot++) {
+                int current = state.get(slot);
+                int code;
+                switch (statusOf(current)) {
+                    case WIN:
+                        code = TablebaseFile.CODE_WIN;
+                        wins++;
+                        break;
+                    case LOSS:
+                        code = TablebaseFile.CODE_LOSS;
+                        losses++;
+                        break;
+                    case INVALID:
+                        code = TablebaseFile.CODE_INVALID;
+                        break;
+                    default:
+                        code = TablebaseFile.CODE_DRAW;
+                        draws++;
+                        break;
+                }
+                if (code == TablebaseFile.CODE_WIN || code == TablebaseFile.CODE_LOSS) {
+                    distances[slot] = (byte) depthOf(current);
+                    longest = Math.max(longest, depthOf(current));
+                }
+                codes[slot >>> 2] |= code << ((slot & 3) * 2);
+            }
+            TablebaseFile.write(directory, material, size, codes, distances);
+            return String.format("%s: %,d positions, %,d wins, %,d losses, %,d draws, longest mate %d plies, %.2f s",
+                    material, wins + losses + draws, wins, losses, draws, longest, elapsedNanos / 1e9);
+        }
+
+        /**
+         * Find the distinct positions one non-capturing move of the side that just
+         * moved away from this one. Illegal parents are filtered out later by their INVALID state.
+         * @return Number of parent slots written to parents
+         */
+        private int unmove(int side, int[] squares, int[] parentSquares, int[] scratch, int[] parents) {
+            int mover = side ^ 1;
+            long occupied = 0L;
+            for (int square : squares) {
+                occupied |= Bitboards.bit(square);
+            }
+            int count = 0;
+            for (int piece = 0; piece < squares.length; piece++) {
+                int color = piece < 2 ? piece : material.getColor(piece - 2);
+                if (color != mover) {
+                    continue;
+                }
+                int type = piece < 2 ? BitboardPosition.KING : material.getType(piece - 2);
+                long origins = origins(type, mover, squares[piece], occupied);
+                while (origins != 0) {
+                    int origin = Bitboards.lowestSquare(origins);
+                    origins &= origins - 1;
+                    System.arraycopy(squares, 0, parentSquares, 0, squares.length);
+                    parentSquares[piece] = origin;
+                    int parent = index.encode(mover, parentSquares, scratch);
+                    int j = 0;
+                    while (j < count && parents[j] != parent) {
+                        j++;
+                    }
+                    if (j == count) {
+                        parents[count++] = parent;
+                    }
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Get the empty squares a piece could have moved to its square from
+     */
+    private static long origins(int type, int color, int square, long occupied) {
+        switch (type) {
+            case BitboardPosition.KING:
+                return Bitboards.KING_ATTACKS[square] & ~occupied;
+            case BitboardPosition.KNIGHT:
+                return Bitboards.KNIGHT_ATTACKS[square] & ~occupied;
+            case BitboardPosition.BISHOP:
+                return Bitboards.bishopAttacks(square, occupied) & ~occupied;
+            case BitboardPosition.ROOK:
+                return Bitboards.rookAttacks(square, occupied) & ~occupied;
+            case BitboardPosition.QUEEN:
+                return Bitboards.queenAttacks(square, occupied) & ~occupied;
+            default:
+                return pawnOrigins(color, square, occupied);
+        }
+    }
+
+    private static long pawnOrigins(int color, int square, long occupied) {
+        // White pawns move towards row 0, so they came from the row below
+        int step = color == BitboardPosition.WHITE ? 8 : -8;
+        int doubleRow = color == BitboardPosition.WHITE ? 4 : 3;
+        int row = Bitboards.rowOf(square);
+        int singleRow = row + (step > 0 ? 1 : -1);
+        // Pawns never stand on the first or last row, so they cannot have come from there
+        if (singleRow < 1 || singleRow > 6 || (occupied & Bitboards.bit(square + step)) != 0) {
+            return 0L;
+        }
+        long origins = Bitboards.bit(square + step);
+        if (row == doubleRow && (occupied & Bitboards.bit(square + 2 * step)) == 0) {
+            origins |= Bitboards.bit(square + 2 * step);
+        }
+        return origins;
+    }
+
+    private interface RangeAction {
+        void run(int from, int to);
+    }
+
+    /**
+     * Splits an index range in halves until it is one chunk
+     */
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeAction action;
+        private final int from;
+        private final int to;
+
+        RangeTask(RangeAction action, int from, int to) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                action.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(action, from, mid), new RangeTask(action, mid, to));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java com.chessgame.tablebase.TablebaseGenerator directory KQK KRK KPK KBNK ...");
+            return;
+        }
+        TablebaseGenerator generator = new TablebaseGenerator(Paths.get(args[0]));
+        long start = System.nanoTime();
+        for (int i = 1; i < args.length; i++) {
+            for (String summary : generator.generate(args[i])) {
+                System.out.println(summary);
+            }
+        }
+        System.out.printf("Done in %.2f s with %d threads%n", (System.nanoTime() - start) / 1e9,
+                generator.pool.getParallelism());
+    }
+}
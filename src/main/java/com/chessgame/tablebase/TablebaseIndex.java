@@ -0,0 +1,162 @@
+package com.chessgame.tablebase;
+
+import com.chessgame.board.BitboardPosition;
+import com.chessgame.board.Bitboards;
+
+/**
+ * Collision-free index of the positions of one material: side to move, white king,
+ * black king, then every other piece, six bits per square. Board symmetry reduces
+ * the white king to the 10 squares of the a1-d1-d4 triangle, or to files a-d when
+ * pawns fix the board's orientation. Symmetric positions always get the same
+ * index, the smallest any symmetry gives; slots no position encodes to are unused.
+ * Squares are passed as arrays ordered white king, black king, then the material's pieces;
+ * encoding reads only the first {@link #squareCount()} entries, so scratch arrays may be longer.
+ * Instances hold no mutable state, so one index serves every thread; callers pass scratch arrays.
+ */
+final class TablebaseIndex {
+    // The eight symmetries of the board as square maps; the first two keep ranks in place
+    private static final int[][] TRANSFORMS = new int[8][64];
+    private static final int[] TRIANGLE_SLOT = new int[64];
+    private static final int[] HALF_SLOT = new int[64];
+    private static final int[] TRIANGLE_SQUARES = new int[10];
+    private static final int[] HALF_SQUARES = new int[32];
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            int r = Bitboards.rowOf(sq);
+            int c = Bitboards.colOf(sq);
+            int[][] images = {{r, c}, {r, 7 - c}, {7 - r, c}, {7 - r, 7 - c},
+                    {c, r}, {c, 7 - r}, {7 - c, r}, {7 - c, 7 - r}};
+            for (int t = 0; t < 8; t++) {
+                TRANSFORMS[t][sq] = Bitboards.square(images[t][0], images[t][1]);
+            }
+        }
+        int triangle = 0;
+        int half = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            int rank = 7 - Bitboards.rowOf(sq);
+            int c = Bitboards.colOf(sq);
+            TRIANGLE_SLOT[sq] = -1;
+            HALF_SLOT[sq] = -1;
+            if (c <= 3 && rank <= c) {
+                TRIANGLE_SQUARES[triangle] = sq;
+                TRIANGLE_SLOT[sq] = triangle++;
+            }
+            if (c <= 3) {
+                HALF_SQUARES[half] = sq;
+                HALF_SLOT[sq] = half++;
+            }
+        }
+    }
+
+    private final Material material;
+    private final int pieces;
+    private final int symmetries;
+    private final int[] kingSlot;
+    private final int[] kingSquares;
+    private final int size;
+
+    TablebaseIndex(Material material) {
+        this.material = material;
+        pieces = material.getPieceCount();
+        boolean pawns = material.hasPawns();
+        symmetries = pawns ? 2 : 8;
+        kingSlot = pawns ? HALF_SLOT : TRIANGLE_SLOT;
+        kingSquares = pawns ? HALF_SQUARES : TRIANGLE_SQUARES;
+        size = 2 * kingSquares.length << (6 * (pieces + 1));
+    }
+
+    /**
+     * Get the number of slots
+     * @return Size of the index range
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the length of the square arrays this index takes
+     * @return Number of pieces including both kings
+     */
+    int squareCount() {
+        return pieces + 2;
+    }
+
+    /**
+     * Index a position given as squares
+     * @param sideToMove WHITE or BLACK
+     * @param squares White king, black king, then the material's pieces
+     * @param transformed Scratch array of at least {@link #squareCount()} entries
+     * @return The index
+     */
+    int encode(int sideToMove, int[] squares, int[] transformed) {
+        int best = Integer.MAX_VALUE;
+        for (int t = 0; t < symmetries; t++) {
+            int[] map = TRANSFORMS[t];
+            int slot = kingSlot[map[squares[0]]];
+            if (slot < 0) {
+                continue;
+            }
+            for (int i = 0; i < pieces + 2; i++) {
+                transformed[i] = map[squares[i]];
+            }
+            // Identical pieces are indexed in ascending square order
+            for (int i = 1; i < pieces; i++) {
+                if (material.getType(i) == material.getType(i - 1) && material.getColor(i) == material.getColor(i - 1)
+                        && transformed[i + 2] < transformed[i + 1]) {
+                    int swap = transformed[i + 2];
+                    transformed[i + 2] = transformed[i + 1];
+                    transformed[i + 1] = swap;
+                }
+            }
+            int index = sideToMove * kingSquares.length + slot;
+            for (int i = 1; i < pieces + 2; i++) {
+                index = (index << 6) | transformed[i];
+            }
+            best = Math.min(best, index);
+        }
+        return best;
+    }
+
+    /**
+     * Index a position of this material
+     * @param position The position
+     * @param flipped Whether the position's colors are the other way round from the material's
+     * @param squares Scratch array of at least {@link #squareCount()} entries
+     * @param transformed Second scratch array of at least the same length
+     * @return The index
+     */
+    int encode(BitboardPosition position, boolean flipped, int[] squares, int[] transformed) {
+        int mirror = flipped ? 56 : 0;
+        int white = flipped ? BitboardPosition.BLACK : BitboardPosition.WHITE;
+        squares[0] = position.getKingSquare(white) ^ mirror;
+        squares[1] = position.getKingSquare(white ^ 1) ^ mirror;
+        long remaining = 0L;
+        for (int i = 0; i < pieces; i++) {
+            if (i == 0 || material.getType(i) != material.getType(i - 1)
+                    || material.getColor(i) != material.getColor(i - 1)) {
+                int color = flipped ? material.getColor(i) ^ 1 : material.getColor(i);
+                remaining = position.getPieces(color, material.getType(i));
+            }
+            squares[i + 2] = Bitboards.lowestSquare(remaining) ^ mirror;
+            remaining &= remaining - 1;
+        }
+        int side = flipped ? position.getSideToMove() ^ 1 : position.getSideToMove();
+        return encode(side, squares, transformed);
+    }
+
+    /**
+     * Get the squares stored in an index slot
+     * @param index The index
+     * @param squares Filled with white king, black king, then the material's pieces
+     * @return The side to move
+     */
+    int decode(int index, int[] squares) {
+        for (int i = squares.length - 1; i >= 1; i--) {
+            squares[i] = index & 63;
+            index >>>= 6;
+        }
+        squares[0] = kingSquares[index % kingSquares.length];
+        return index / kingSquares.length;
+    }
+}